@@ -0,0 +1,149 @@
+package gov.nasa.pds.registry.mgr.benchmark;
+
+
+/**
+ * Generates synthetic Elasticsearch documents and API responses for benchmarks.
+ *
+ * @author karpenko
+ */
+public class BenchmarkData
+{
+    /**
+     * Create a registry document (one line of JSON, about 1 KB)
+     * @param num document number
+     * @return JSON
+     */
+    public static String createDocument(int num)
+    {
+        StringBuilder sb = new StringBuilder(1200);
+        sb.append("{\"lid\":\"urn:nasa:pds:bench:data:product_").append(num).append("\"");
+        sb.append(",\"vid\":\"1.0\"");
+        sb.append(",\"lidvid\":\"urn:nasa:pds:bench:data:product_").append(num).append("::1.0\"");
+        sb.append(",\"title\":\"Benchmark product ").append(num).append("\"");
+        sb.append(",\"product_class\":\"Product_Observational\"");
+        sb.append(",\"_package_id\":\"e2c5b0a4-4a6b-4d7e-9a51-0c3f5f7d2b11\"");
+        sb.append(",\"archive_status\":\"archived\"");
+
+        for(int i = 0; i < 20; i++)
+        {
+            sb.append(",\"pds:Time_Coordinates/pds:field_").append(i).append("\":\"value ")
+                .append(num).append('-').append(i).append("\"");
+        }
+
+        sb.append('}');
+        return sb.toString();
+    }
+
+
+    /**
+     * Create "_bulk" API response
+     * @param numItems number of items
+     * @param numErrors number of failed items
+     * @return JSON
+     */
+    public static String createBulkResponse(int numItems, int numErrors)
+    {
+        StringBuilder sb = new StringBuilder(numItems * 200);
+        sb.append("{\"took\":30,\"errors\":").append(numErrors > 0).append(",\"items\":[");
+
+        for(int i = 0; i < numItems; i++)
+        {
+            if(i > 0) sb.append(',');
+
+            sb.append("{\"index\":{\"_index\":\"registry\",\"_id\":\"urn:nasa:pds:bench:data:product_")
+                .append(i).append("::1.0\",\"_version\":1,");
+
+            if(i < numErrors)
+            {
+                sb.append("\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\",")
+                    .append("\"reason\":\"failed to parse field [pds:Time_Coordinates/pds:start_date_time]\"}}}");
+            }
+            else
+            {
+                sb.append("\"result\":\"created\",\"_shards\":{\"total\":2,\"successful\":1,\"failed\":0},")
+                    .append("\"status\":201}}");
+            }
+        }
+
+        sb.append("]}");
+        return sb.toString();
+    }
+
+
+    /**
+     * Create "_mget" response from data dictionary index
+     * @param numDocs number of documents
+     * @return JSON
+     */
+    public static String createMgetResponse(int numDocs)
+    {
+        StringBuilder sb = new StringBuilder(numDocs * 150);
+        sb.append("{\"docs\":[");
+
+        for(int i = 0; i < numDocs; i++)
+        {
+            if(i > 0) sb.append(',');
+
+            sb.append("{\"_index\":\"registry-dd\",\"_id\":\"pds:Bench_Class/pds:field_").append(i).append("\",");
+            if(i % 10 == 9)
+            {
+                sb.append("\"found\":false}");
+            }
+            else
+            {
+                sb.append("\"_version\":1,\"_seq_no\":").append(i).append(",\"_primary_term\":1,")
+                    .append("\"found\":true,\"_source\":{\"es_data_type\":\"keyword\"}}");
+            }
+        }
+
+        sb.append("]}");
+        return sb.toString();
+    }
+
+
+    /**
+     * Create "/index/_mappings" response
+     * @param indexName index name
+     * @param numFields number of fields
+     * @return JSON
+     */
+    public static String createMappingsResponse(String indexName, int numFields)
+    {
+        StringBuilder sb = new StringBuilder(numFields * 60);
+        sb.append("{\"").append(indexName).append("\":{\"mappings\":{\"dynamic\":\"false\",\"properties\":{");
+
+        for(int i = 0; i < numFields; i++)
+        {
+            if(i > 0) sb.append(',');
+            sb.append("\"pds:Bench_Class/pds:field_").append(i).append("\":{\"type\":\"keyword\"}");
+        }
+
+        sb.append("}}}}");
+        return sb.toString();
+    }
+
+
+    /**
+     * Create search response with hits (as returned by export queries)
+     * @param numHits number of hits
+     * @return JSON
+     */
+    public static String createSearchResponse(int numHits)
+    {
+        StringBuilder sb = new StringBuilder(numHits * 1300);
+        sb.append("{\"pit_id\":\"bench-pit-id\",\"took\":5,\"timed_out\":false,")
+            .append("\"hits\":{\"total\":{\"value\":").append(numHits).append(",\"relation\":\"eq\"},\"hits\":[");
+
+        for(int i = 0; i < numHits; i++)
+        {
+            if(i > 0) sb.append(',');
+
+            sb.append("{\"_index\":\"registry\",\"_id\":\"urn:nasa:pds:bench:data:product_").append(i)
+                .append("::1.0\",\"_score\":null,\"_source\":").append(createDocument(i))
+                .append(",\"sort\":[").append(i).append("]}");
+        }
+
+        sb.append("]}}");
+        return sb.toString();
+    }
+}
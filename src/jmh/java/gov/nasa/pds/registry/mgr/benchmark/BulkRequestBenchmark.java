@@ -0,0 +1,102 @@
+package gov.nasa.pds.registry.mgr.benchmark;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.nasa.pds.registry.mgr.dao.BulkResponseParser;
+import gov.nasa.pds.registry.mgr.util.es.NJsonEntity;
+
+
+/**
+ * Benchmarks of "_bulk" request assembly and response parsing used by DataLoader.
+ * A batch of NJSON records is written by {@link NJsonEntity} (optionally gzip-compressed).
+ * "_bulk" responses with and without errors are parsed by {@link BulkResponseParser}.
+ *
+ * @author karpenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkRequestBenchmark
+{
+    @Param({"1000"})
+    public int batchSize;
+
+    @Param({"0", "1"})
+    public int gzipLevel;
+
+    private List<ByteBuffer> lines;
+    private long numBytes;
+
+    private byte[] okResponse;
+    private byte[] errorResponse;
+
+
+    @Setup
+    public void setup()
+    {
+        lines = new ArrayList<>(batchSize * 2);
+        numBytes = 0;
+
+        for(int i = 0; i < batchSize; i++)
+        {
+            byte[] pk = ("{\"index\":{\"_id\":\"urn:nasa:pds:bench:data:product_" + i + "::1.0\"}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] data = BenchmarkData.createDocument(i).getBytes(StandardCharsets.UTF_8);
+
+            lines.add(ByteBuffer.wrap(pk));
+            lines.add(ByteBuffer.wrap(data));
+            numBytes += pk.length + data.length + 2;
+        }
+
+        okResponse = BenchmarkData.createBulkResponse(batchSize, 0).getBytes(StandardCharsets.UTF_8);
+        errorResponse = BenchmarkData.createBulkResponse(batchSize, 10).getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    @Benchmark
+    public long writeBatch() throws Exception
+    {
+        NJsonEntity entity = new NJsonEntity(lines, numBytes);
+        entity.setCompressionLevel(gzipLevel);
+        entity.writeTo(OutputStream.nullOutputStream());
+        return entity.getCompressedLength();
+    }
+
+
+    @Benchmark
+    public int parseResponseNoErrors() throws Exception
+    {
+        BulkResponseParser parser = new BulkResponseParser();
+        return parser.parse(new ByteArrayEntity(okResponse, ContentType.APPLICATION_JSON)).size();
+    }
+
+
+    @Benchmark
+    public int parseResponseWithErrors() throws Exception
+    {
+        BulkResponseParser parser = new BulkResponseParser();
+        return parser.parse(new ByteArrayEntity(errorResponse, ContentType.APPLICATION_JSON)).size();
+    }
+}
@@ -0,0 +1,86 @@
+package gov.nasa.pds.registry.mgr.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nasa.pds.registry.mgr.dd.DDNJsonWriter;
+import gov.nasa.pds.registry.mgr.dd.DDRecord;
+
+
+/**
+ * Benchmark of NJSON record serialization (BaseNJsonWriter.write())
+ * used when loading data dictionaries. Serialized lines are consumed 
+ * by a blackhole instead of being buffered.
+ *
+ * @author karpenko
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DDNJsonWriterBenchmark
+{
+    /**
+     * Passes serialized records to a blackhole.
+     */
+    private static class BlackholeWriter extends DDNJsonWriter
+    {
+        private Blackhole bh;
+
+        public BlackholeWriter(Blackhole bh)
+        {
+            super();
+            this.bh = bh;
+        }
+
+        @Override
+        protected void writeRecord(String pkLine, String dataLine) throws Exception
+        {
+            bh.consume(pkLine);
+            bh.consume(dataLine);
+        }
+    }
+
+    private DDRecord rec;
+    private String pk;
+
+
+    @Setup
+    public void setup()
+    {
+        rec = new DDRecord();
+        rec.classNs = "pds";
+        rec.className = "Time_Coordinates";
+        rec.attrNs = "pds";
+        rec.attrName = "start_date_time";
+        rec.esDataType = "date";
+        rec.dataType = "ASCII_Date_Time_YMD_UTC";
+        rec.description = "The start_date_time attribute provides the date and time at the "
+                + "beginning of the data set or product.";
+        rec.version = "1.16.0.0";
+        rec.date = "2021-03-12T00:00:00Z";
+
+        pk = rec.esFieldNameFromComponents();
+    }
+
+
+    @Benchmark
+    public void write(Blackhole bh) throws Exception
+    {
+        BlackholeWriter writer = new BlackholeWriter(bh);
+        writer.write(pk, rec);
+    }
+}
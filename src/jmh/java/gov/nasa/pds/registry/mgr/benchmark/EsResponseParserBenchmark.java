@@ -0,0 +1,71 @@
+package gov.nasa.pds.registry.mgr.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.nasa.pds.registry.mgr.dao.GetDataTypesResponseParser;
+import gov.nasa.pds.registry.mgr.dao.MappingsParser;
+
+
+/**
+ * Benchmarks of Elasticsearch response parsers used by schema updates:
+ * "_mget" response from data dictionary index ({@link GetDataTypesResponseParser})
+ * and index mappings ({@link MappingsParser}).
+ *
+ * @author karpenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EsResponseParserBenchmark
+{
+    private static final String INDEX_NAME = "registry";
+
+    @Param({"1000"})
+    public int numFields;
+
+    private byte[] mgetResponse;
+    private byte[] mappingsResponse;
+
+
+    @Setup
+    public void setup()
+    {
+        mgetResponse = BenchmarkData.createMgetResponse(numFields).getBytes(StandardCharsets.UTF_8);
+        mappingsResponse = BenchmarkData.createMappingsResponse(INDEX_NAME, numFields)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    @Benchmark
+    public int parseDataTypes() throws Exception
+    {
+        GetDataTypesResponseParser parser = new GetDataTypesResponseParser();
+        return parser.parse(new ByteArrayEntity(mgetResponse, ContentType.APPLICATION_JSON)).size();
+    }
+
+
+    @Benchmark
+    public int parseMappings() throws Exception
+    {
+        MappingsParser parser = new MappingsParser(INDEX_NAME);
+        return parser.parse(new ByteArrayEntity(mappingsResponse, ContentType.APPLICATION_JSON)).size();
+    }
+}
@@ -0,0 +1,81 @@
+package gov.nasa.pds.registry.mgr.benchmark;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.nasa.pds.registry.mgr.dao.ExportResponseParser;
+import gov.nasa.pds.registry.mgr.util.es.EsDocWriter;
+
+
+/**
+ * Benchmark of data export: search response hits are parsed by 
+ * {@link ExportResponseParser} and written by {@link EsDocWriter}.
+ * Output goes to the null device if available, otherwise to a temporary file.
+ *
+ * @author karpenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark
+{
+    @Param({"1000"})
+    public int numHits;
+
+    private byte[] response;
+    private File outFile;
+    private boolean tmpFile;
+    private EsDocWriter writer;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        response = BenchmarkData.createSearchResponse(numHits).getBytes(StandardCharsets.UTF_8);
+
+        outFile = new File("/dev/null");
+        if(!outFile.exists())
+        {
+            outFile = File.createTempFile("export-benchmark", ".json");
+            tmpFile = true;
+        }
+
+        writer = new EsDocWriter(outFile);
+    }
+
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        writer.close();
+        if(tmpFile) outFile.delete();
+    }
+
+
+    @Benchmark
+    public int parseAndWrite() throws Exception
+    {
+        ExportResponseParser parser = new ExportResponseParser();
+        parser.parse(new ByteArrayEntity(response, ContentType.APPLICATION_JSON), writer);
+        return parser.getNumDocs();
+    }
+}
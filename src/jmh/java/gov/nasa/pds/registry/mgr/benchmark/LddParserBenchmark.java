@@ -0,0 +1,76 @@
+package gov.nasa.pds.registry.mgr.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.nasa.pds.registry.mgr.dd.parser.AttributeDictionaryParser;
+import gov.nasa.pds.registry.mgr.dd.parser.ClassAttrAssociationParser;
+import gov.nasa.pds.registry.mgr.dd.parser.LddParser;
+
+
+/**
+ * Benchmarks of LDD (JSON data dictionary) parsers. By default, the LDD
+ * bundled with tests is parsed. Use "-p lddFile=&lt;path&gt;" to parse another LDD.
+ *
+ * @author karpenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LddParserBenchmark
+{
+    @Param({"src/test/data/PDS4_MSN_1B00_1100.JSON"})
+    public String lddFile;
+
+    private File file;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        file = new File(lddFile);
+        if(!file.exists()) throw new Exception("LDD file doesn't exist: " + file.getAbsolutePath());
+    }
+
+
+    @Benchmark
+    public void parseAttributes(Blackhole bh) throws Exception
+    {
+        AttributeDictionaryParser parser = new AttributeDictionaryParser(file, bh::consume);
+        parser.parse();
+    }
+
+
+    @Benchmark
+    public void parseAssociations(Blackhole bh) throws Exception
+    {
+        ClassAttrAssociationParser parser = new ClassAttrAssociationParser(file, 
+                (classNs, className, attrId) -> bh.consume(attrId));
+        parser.parse();
+    }
+
+
+    @Benchmark
+    public void parseLdd(Blackhole bh) throws Exception
+    {
+        LddParser parser = new LddParser(file, 
+                (classNs, className, attrId, attr) -> { bh.consume(attrId); bh.consume(attr); });
+        parser.parse();
+    }
+}
@@ -15,6 +15,9 @@ public interface Constants
     public static final String ATTR_SEPARATOR = "/";
     public static final String BLOB_FIELD = "ops:Label_File_Info/ops:blob";
     
+    // Stored scripts
+    public static final String SET_ARCHIVE_STATUS_SCRIPT = "registry-set-archive-status";
+    
     // LDDs
     public static final String DEFAULT_LDD_LIST_URL 
         = "https://raw.githubusercontent.com/NASA-PDS/pds4-information-model/main/docs/ldds/pds4-ldd-config.csv";
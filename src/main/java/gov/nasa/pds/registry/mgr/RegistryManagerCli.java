@@ -22,6 +22,7 @@ import gov.nasa.pds.registry.mgr.cmd.dd.LoadDDCmd;
 import gov.nasa.pds.registry.mgr.cmd.dd.UpdateSchemaCmd;
 import gov.nasa.pds.registry.mgr.cmd.reg.CreateRegistryCmd;
 import gov.nasa.pds.registry.mgr.cmd.reg.DeleteRegistryCmd;
+import gov.nasa.pds.registry.mgr.cmd.reg.ManageTasksCmd;
 import gov.nasa.pds.registry.mgr.util.ExceptionUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
 
@@ -72,6 +73,7 @@ public class RegistryManagerCli
         System.out.println("Registry:");
         System.out.println("  create-registry      Create registry and data dictionary indices");
         System.out.println("  delete-registry      Delete registry and data dictionary indices and all its data");        
+        System.out.println("  manage-tasks         List, rethrottle or cancel running delete and update tasks");
         
         System.out.println();
         System.out.println("Data Dictionary:");
@@ -221,6 +223,7 @@ public class RegistryManagerCli
         // Registry
         commands.put("create-registry", new CreateRegistryCmd());
         commands.put("delete-registry", new DeleteRegistryCmd());
+        commands.put("manage-tasks", new ManageTasksCmd());
 
         // Data dictionary
         commands.put("load-dd", new LoadDDCmd());
@@ -271,6 +274,9 @@ public class RegistryManagerCli
         bld = Option.builder("dd").hasArg().argName("path");
         options.addOption(bld.build());
 
+        bld = Option.builder("ddList").hasArg().argName("path");
+        options.addOption(bld.build());
+
         bld = Option.builder("dump").hasArg().argName("path");
         options.addOption(bld.build());
 
@@ -280,6 +286,9 @@ public class RegistryManagerCli
         bld = Option.builder("updateSchema").hasArg().argName("y/n");
         options.addOption(bld.build());
 
+        bld = Option.builder("ddCache").hasArg().argName("y/n");
+        options.addOption(bld.build());
+
         bld = Option.builder("ldd").hasArg().argName("url");
         options.addOption(bld.build());
 
@@ -292,6 +301,69 @@ public class RegistryManagerCli
 
         bld = Option.builder("packageId").hasArg().argName("id");
         options.addOption(bld.build());
+
+        bld = Option.builder("idList").hasArg().argName("path");
+        options.addOption(bld.build());
+
+        bld = Option.builder("idType").hasArg().argName("type");
+        options.addOption(bld.build());
+
+        bld = Option.builder("requestsPerSecond").hasArg().argName("#");
+        options.addOption(bld.build());
+
+        bld = Option.builder("list");
+        options.addOption(bld.build());
+
+        bld = Option.builder("rethrottle").hasArg().argName("id");
+        options.addOption(bld.build());
+
+        bld = Option.builder("cancel").hasArg().argName("id");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("threads").hasArg().argName("#");
+        options.addOption(bld.build());
+
+        bld = Option.builder("fileThreads").hasArg().argName("#");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("maxBatchMb").hasArg().argName("#");
+        options.addOption(bld.build());
+
+        bld = Option.builder("adaptiveBatch").hasArg().argName("y/n");
+        options.addOption(bld.build());
+
+        bld = Option.builder("mmap").hasArg().argName("y/n");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("gzip").hasArg().argName("#");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("failedDir").hasArg().argName("path");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("checkpoint");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("resume");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("pageSize").hasArg().argName("#");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("includeFields").hasArg().argName("list");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("excludeFields").hasArg().argName("list");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("slices").hasArg().argName("#");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("compress").hasArg().argName("type");
+        options.addOption(bld.build());
+        
+        bld = Option.builder("maxFileMb").hasArg().argName("#");
+        options.addOption(bld.build());
         
         bld = Option.builder("all");
         options.addOption(bld.build());
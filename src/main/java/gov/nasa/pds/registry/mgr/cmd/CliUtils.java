@@ -0,0 +1,167 @@
+package gov.nasa.pds.registry.mgr.cmd;
+
+import java.io.File;
+
+import org.apache.commons.cli.CommandLine;
+
+
+/**
+ * Parsing and printing of command-line parameters shared by several
+ * CLI commands.
+ *
+ * @author karpenko
+ */
+public class CliUtils
+{
+    /**
+     * Parse "yes/no" command line parameter.
+     * @param paramName Parameter name used to generate exception message.
+     * @param val String value to parse. Can be any of "y", "yes", "n", "no", upper or lower case.
+     * @return true for "yes", false for "no".
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    public static boolean parseYesNo(String paramName, String val) throws Exception
+    {
+        val = val.toLowerCase();
+        
+        if(val.equals("y") || val.equals("yes"))
+        {
+            return true;
+        }
+        
+        if(val.equals("n") || val.equals("no"))
+        {
+            return false;
+        }
+        
+        throw new Exception("Parameter '" + paramName + "' has invalid value '" + val + "'");
+    }
+
+
+    /**
+     * Parse "-ddCache" command line parameter. Default is "yes".
+     * @param cmdLine command line
+     * @return true if local data type cache should be used
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    public static boolean getDDCacheOption(CommandLine cmdLine) throws Exception
+    {
+        return parseYesNo("ddCache", cmdLine.getOptionValue("ddCache", "Y"));
+    }
+
+
+    /**
+     * Parse positive integer command line parameter.
+     * @param paramName Parameter name used to generate exception message.
+     * @param val String value to parse.
+     * @return integer value
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    private static int parsePositiveInt(String paramName, String val) throws Exception
+    {
+        try
+        {
+            int num = Integer.parseInt(val);
+            if(num > 0) return num;
+        }
+        catch(NumberFormatException ex)
+        {
+            // Ignore
+        }
+        
+        throw new Exception("Parameter '" + paramName + "' has invalid value '" + val + "'");
+    }
+
+
+    /**
+     * Get value of a positive integer command line parameter.
+     * @param cmdLine command line
+     * @param paramName parameter name, e.g., "threads"
+     * @param defaultValue value to return if the parameter is not set
+     * @return integer value
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    public static int getPositiveInt(CommandLine cmdLine, String paramName, int defaultValue) throws Exception
+    {
+        String val = cmdLine.getOptionValue(paramName);
+        return (val == null) ? defaultValue : parsePositiveInt(paramName, val);
+    }
+
+
+    /**
+     * Get value of "-failedDir" command line parameter. Validate and create 
+     * (if needed) a directory to save documents which could not be loaded.
+     * @param cmdLine command line
+     * @param dataDir input data directory ("-dir" parameter). The failed directory
+     * should be different from the data directory. Can be null.
+     * @return directory or null if the parameter is not set
+     * @throws Exception an exception
+     */
+    public static File getFailedDir(CommandLine cmdLine, File dataDir) throws Exception
+    {
+        String path = cmdLine.getOptionValue("failedDir");
+        if(path == null) return null;
+        
+        File dir = new File(path);
+        if(dataDir != null && dir.getCanonicalFile().equals(dataDir.getCanonicalFile()))
+        {
+            throw new Exception("Parameter '-failedDir' should be different from '-dir'");
+        }
+
+        if(!dir.exists() && !dir.mkdirs()) throw new Exception("Could not create directory " + dir.getAbsolutePath());
+        if(!dir.isDirectory()) throw new Exception("Invalid directory " + dir.getAbsolutePath());
+        
+        return dir;
+    }
+
+
+    /**
+     * Get value of "-requestsPerSecond" command-line parameter (throttle of
+     * Elasticsearch "by query" tasks). The value is a positive number or
+     * "unlimited" (also "-1").
+     * @param cmdLine command line
+     * @return throttle or -1 if the parameter is not set or tasks are not throttled
+     * @throws Exception an exception
+     */
+    public static double getRequestsPerSecond(CommandLine cmdLine) throws Exception
+    {
+        String val = cmdLine.getOptionValue("requestsPerSecond");
+        if(val == null || "unlimited".equalsIgnoreCase(val)) return -1;
+
+        try
+        {
+            double num = Double.parseDouble(val);
+            if(num > 0 || num == -1) return num;
+        }
+        catch(NumberFormatException ex)
+        {
+            // Ignore
+        }
+
+        throw new Exception("Invalid '-requestsPerSecond' parameter value: '" + val + "'");
+    }
+
+
+    /**
+     * Format throttle of "by query" tasks.
+     * @param requestsPerSecond throttle. If not positive, tasks are not throttled.
+     * @return formatted throttle, e.g., "500.0 requests per second" or "unlimited"
+     */
+    public static String formatThrottle(double requestsPerSecond)
+    {
+        return (requestsPerSecond > 0) ? requestsPerSecond + " requests per second" : "unlimited";
+    }
+
+
+    /**
+     * Print throttle of "by query" tasks if the tasks are throttled.
+     * @param requestsPerSecond throttle. If not positive, nothing is printed.
+     */
+    public static void printThrottle(double requestsPerSecond)
+    {
+        if(requestsPerSecond > 0)
+        {
+            System.out.println("         Throttle: " + formatThrottle(requestsPerSecond) + " per task");
+        }
+    }
+}
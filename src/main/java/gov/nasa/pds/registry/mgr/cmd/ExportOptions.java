@@ -0,0 +1,77 @@
+package gov.nasa.pds.registry.mgr.cmd;
+
+import org.apache.commons.cli.CommandLine;
+
+
+/**
+ * Parsers of command-line parameters shared by export commands 
+ * ("export-data", "export-dd").
+ *
+ * @author karpenko
+ */
+public class ExportOptions
+{
+    /**
+     * Parse "-slices" command line parameter.
+     * @param cmdLine command line
+     * @return number of slices
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    public static int getNumSlices(CommandLine cmdLine) throws Exception
+    {
+        String val = cmdLine.getOptionValue("slices", "1");
+        
+        try
+        {
+            int num = Integer.parseInt(val);
+            if(num > 0) return num;
+        }
+        catch(NumberFormatException ex)
+        {
+            // Ignore
+        }
+        
+        throw new Exception("Parameter 'slices' has invalid value '" + val + "'");
+    }
+    
+    
+    /**
+     * Parse "-compress" command line parameter.
+     * @param cmdLine command line
+     * @return true if output files should be gzip-compressed
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    public static boolean getCompression(CommandLine cmdLine) throws Exception
+    {
+        String val = cmdLine.getOptionValue("compress", "none");
+        
+        if("gzip".equalsIgnoreCase(val)) return true;
+        if("none".equalsIgnoreCase(val)) return false;
+        
+        throw new Exception("Parameter 'compress' has invalid value '" + val + "'. Should be 'gzip' or 'none'.");
+    }
+    
+    
+    /**
+     * Parse "-maxFileMb" command line parameter.
+     * @param cmdLine command line
+     * @return maximum output file size in bytes or 0 if output files should not be split
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    public static long getMaxFileSize(CommandLine cmdLine) throws Exception
+    {
+        String val = cmdLine.getOptionValue("maxFileMb", "0");
+        
+        try
+        {
+            long num = Long.parseLong(val);
+            if(num >= 0) return num * 1024 * 1024;
+        }
+        catch(NumberFormatException ex)
+        {
+            // Ignore
+        }
+        
+        throw new Exception("Parameter 'maxFileMb' has invalid value '" + val + "'");
+    }
+}
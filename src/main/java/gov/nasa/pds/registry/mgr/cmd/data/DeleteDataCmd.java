@@ -1,34 +1,45 @@
 package gov.nasa.pds.registry.mgr.cmd.data;
 
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.cli.CommandLine;
-import org.elasticsearch.client.Request;
-import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 
-import com.google.gson.Gson;
-
 import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
 import gov.nasa.pds.registry.mgr.dao.RegistryRequestBuilder;
+import gov.nasa.pds.registry.mgr.dao.TaskDao;
+import gov.nasa.pds.registry.mgr.dao.TaskMonitor;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
+import gov.nasa.pds.registry.mgr.util.file.IdListReader;
 
 
 /**
  * A CLI command to delete records from registry index in Elasticsearch.
  * Records can be deleted by LIDVID, LID, PackageID. All records can also be deleted. 
  * 
+ * A list of IDs can also be read from a file or standard input ("-idList").
+ * IDs are grouped into large "terms" queries which are submitted as 
+ * asynchronous, automatically sliced "_delete_by_query" tasks 
+ * against both registry and product references indices.
+ * 
+ * All deletes run as asynchronous tasks. Progress is read from the task API.
+ * Tasks can be throttled ("-requestsPerSecond").
+ * 
  * @author karpenko
  */
 public class DeleteDataCmd implements CliCommand
 {
+    // Number of IDs in one "terms" query
+    private static final int ID_CHUNK_SIZE = 10000;
+    // Number of ID chunks being deleted at the same time
+    private static final int MAX_RUNNING_CHUNKS = 4;
+    
     private String filterMessage;
     private String regQuery;
     private String refsQuery;
@@ -55,22 +66,39 @@ public class DeleteDataCmd implements CliCommand
         String indexName = cmdLine.getOptionValue("index", Constants.DEFAULT_REGISTRY_INDEX);
         String authPath = cmdLine.getOptionValue("auth");
 
+        String idListPath = cmdLine.getOptionValue("idList");
+        if(idListPath != null)
+        {
+            deleteIdList(cmdLine, esUrl, indexName, authPath, idListPath);
+            return;
+        }
+        
         buildEsQuery(cmdLine);
+        double requestsPerSecond = CliUtils.getRequestsPerSecond(cmdLine);
 
         System.out.println("Elasticsearch URL: " + esUrl);
         System.out.println("            Index: " + indexName);
         System.out.println(filterMessage);
+        CliUtils.printThrottle(requestsPerSecond);
         System.out.println();
         
+        String refsIndexName = indexName + "-refs";
         RestClient client = null;
         
         try
         {
             client = EsClientFactory.createRestClient(esUrl, authPath);
-            // Delete from registry index
-            deleteByQuery(client, indexName, regQuery);
-            // Delete from product references index
-            deleteByQuery(client, indexName + "-refs", refsQuery);
+            TaskDao dao = new TaskDao(client);
+            TaskMonitor monitor = new TaskMonitor(dao);
+            
+            // Delete from registry and product references indices at the same time
+            String taskId = dao.submitByQueryTask(indexName, "_delete_by_query", regQuery, requestsPerSecond);
+            monitor.add(taskId, indexName);
+            
+            taskId = dao.submitByQueryTask(refsIndexName, "_delete_by_query", refsQuery, requestsPerSecond);
+            monitor.add(taskId, refsIndexName);
+            
+            waitForTasks(monitor);
         }
         catch(ResponseException ex)
         {
@@ -83,36 +111,124 @@ public class DeleteDataCmd implements CliCommand
     }
 
     
-    private static void deleteByQuery(RestClient client, String indexName, String query) throws Exception
+    /**
+     * Delete records by a list of IDs read from a file or standard input.
+     * @param cmdLine command line
+     * @param esUrl Elasticsearch URL
+     * @param indexName registry index name
+     * @param authPath authentication config file
+     * @param idListPath ID list file or "-" for standard input
+     * @throws Exception an exception
+     */
+    private void deleteIdList(CommandLine cmdLine, String esUrl, String indexName, 
+            String authPath, String idListPath) throws Exception
     {
-        Request req = new Request("POST", "/" + indexName + "/_delete_by_query");
-        req.setJsonEntity(query);
+        String idType = cmdLine.getOptionValue("idType", "lidvid");
+        String regField = getRegistryField(idType);
+        String refsField = getRefsField(idType);
+        
+        double requestsPerSecond = CliUtils.getRequestsPerSecond(cmdLine);
         
-        Response resp = client.performRequest(req);
-        double numDeleted = extractNumDeleted(resp); 
+        List<String> ids = IdListReader.read(idListPath);
         
-        System.out.format("Deleted %.0f document(s) from %s index\n", numDeleted, indexName);
+        System.out.println("Elasticsearch URL: " + esUrl);
+        System.out.println("            Index: " + indexName);
+        System.out.println("          ID list: " + (IdListReader.STDIN.equals(idListPath) ? "<stdin>" : idListPath));
+        System.out.println("          ID type: " + idType);
+        System.out.println("    Number of IDs: " + ids.size());
+        CliUtils.printThrottle(requestsPerSecond);
+        System.out.println();
+        
+        if(ids.isEmpty()) return;
+        
+        String refsIndexName = indexName + "-refs";
+        RestClient client = null;
+        
+        try
+        {
+            client = EsClientFactory.createRestClient(esUrl, authPath);
+            TaskDao dao = new TaskDao(client);
+            TaskMonitor monitor = new TaskMonitor(dao);
+            RegistryRequestBuilder bld = new RegistryRequestBuilder();
+            
+            for(int i = 0; i < ids.size(); i += ID_CHUNK_SIZE)
+            {
+                // Each chunk runs 2 tasks: registry and product references
+                monitor.waitForSlot(MAX_RUNNING_CHUNKS * 2);
+                
+                List<String> chunk = ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size()));
+                
+                String taskId = dao.submitByQueryTask(indexName, "_delete_by_query", 
+                        bld.createTermsFilterQuery(regField, chunk), requestsPerSecond);
+                monitor.add(taskId, indexName);
+
+                taskId = dao.submitByQueryTask(refsIndexName, "_delete_by_query", 
+                        bld.createTermsFilterQuery(refsField, chunk), requestsPerSecond);
+                monitor.add(taskId, refsIndexName);
+            }
+            
+            waitForTasks(monitor);
+        }
+        catch(ResponseException ex)
+        {
+            throw new Exception(EsUtils.extractErrorMessage(ex));
+        }
+        finally
+        {
+            CloseUtils.close(client);
+        }
     }
     
     
-    @SuppressWarnings("rawtypes")
-    private static double extractNumDeleted(Response resp)
+    private static String getRegistryField(String idType) throws Exception
     {
-        try
+        switch(idType)
         {
-            InputStream is = resp.getEntity().getContent();
-            Reader rd = new InputStreamReader(is);
-            
-            Gson gson = new Gson();
-            Object obj = gson.fromJson(rd, Object.class);
-            rd.close();
-            
-            obj = ((Map)obj).get("deleted");
-            return (Double)obj;
+        case "lidvid":
+            return "lidvid";
+        case "lid":
+            return "lid";
+        case "packageId":
+            return "_package_id";
+        default:
+            throw new Exception("Invalid '-idType' parameter value: '" + idType + "'");
         }
-        catch(Exception ex)
+    }
+
+    
+    private static String getRefsField(String idType) throws Exception
+    {
+        switch(idType)
+        {
+        case "lidvid":
+            return "collection_lidvid";
+        case "lid":
+            return "collection_lid";
+        case "packageId":
+            return "_package_id";
+        default:
+            throw new Exception("Invalid '-idType' parameter value: '" + idType + "'");
+        }
+    }
+    
+    
+    /**
+     * Wait for all delete tasks and print the number of deleted documents.
+     * @param monitor task monitor
+     * @throws Exception an exception
+     */
+    private static void waitForTasks(TaskMonitor monitor) throws Exception
+    {
+        monitor.waitForAll();
+        
+        for(Map.Entry<String, Long> entry: monitor.getTotals().entrySet())
+        {
+            System.out.format("Deleted %d document(s) from %s index\n", entry.getValue(), entry.getKey());
+        }
+        
+        if(!monitor.getErrors().isEmpty())
         {
-            return 0;
+            throw new Exception(monitor.getErrors().size() + " delete task(s) failed");
         }
     }
     
@@ -169,7 +285,7 @@ public class DeleteDataCmd implements CliCommand
             return;
         }
 
-        throw new Exception("One of the following options is required: -lidvid, -lid, -packageId, -all");
+        throw new Exception("One of the following options is required: -lidvid, -lid, -packageId, -idList, -all");
     }
     
     
@@ -184,11 +300,17 @@ public class DeleteDataCmd implements CliCommand
         System.out.println("  -lidvid <id>      Delete data by lidvid");
         System.out.println("  -lid <id>         Delete data by lid");
         System.out.println("  -packageId <id>   Delete data by package id"); 
+        System.out.println("  -idList <path>    Delete data by a list of IDs (one ID per line).");
+        System.out.println("                    Use '-' to read the list from standard input.");
         System.out.println("  -all              Delete all data");
         System.out.println("Optional parameters:");
         System.out.println("  -auth <file>      Authentication config file");
         System.out.println("  -es <url>         Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>     Elasticsearch index name. Default is 'registry'");
+        System.out.println("  -idType <type>    Type of IDs in the '-idList' file: lidvid, lid, packageId.");
+        System.out.println("                    Default is lidvid");
+        System.out.println("  -requestsPerSecond <#>  Throttle each delete task (documents per second).");
+        System.out.println("                    Use 'manage-tasks' command to rethrottle or cancel running tasks.");
         System.out.println();
     }
 
@@ -1,11 +1,14 @@
 package gov.nasa.pds.registry.mgr.cmd.data;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.ExportOptions;
 import gov.nasa.pds.registry.mgr.dao.RegistryDataExporter;
 
 
@@ -51,6 +54,13 @@ public class ExportDataCmd implements CliCommand
         String indexName = cmdLine.getOptionValue("index", Constants.DEFAULT_REGISTRY_INDEX);
         String authPath = cmdLine.getOptionValue("auth");
 
+        int numSlices = ExportOptions.getNumSlices(cmdLine);
+        boolean gzip = ExportOptions.getCompression(cmdLine);
+        long maxFileSize = ExportOptions.getMaxFileSize(cmdLine);
+        int pageSize = getPageSize(cmdLine);
+        List<String> includes = getFieldList(cmdLine.getOptionValue("includeFields"));
+        List<String> excludes = getFieldList(cmdLine.getOptionValue("excludeFields"));
+        
         extractFilterParams(cmdLine);
         if(filterType == null)
         {
@@ -64,10 +74,60 @@ public class ExportDataCmd implements CliCommand
         
         RegistryDataExporter exp = new RegistryDataExporter(esUrl, indexName, authPath);
         exp.setFilterField(filterFieldName, filterFieldValue);
+        exp.setNumSlices(numSlices);
+        exp.setCompression(gzip);
+        exp.setMaxFileSize(maxFileSize);
+        exp.setPageSize(pageSize);
+        exp.setSourceFields(includes, excludes);
         exp.export(new File(filePath));
     }
 
     
+    /**
+     * Parse "-pageSize" command line parameter.
+     * @param cmdLine command line
+     * @return page size
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    private static int getPageSize(CommandLine cmdLine) throws Exception
+    {
+        String val = cmdLine.getOptionValue("pageSize", "100");
+        
+        try
+        {
+            int num = Integer.parseInt(val);
+            // Elasticsearch limits search results to 10,000 by default ("index.max_result_window")
+            if(num > 0 && num <= 10000) return num;
+        }
+        catch(NumberFormatException ex)
+        {
+            // Ignore
+        }
+        
+        throw new Exception("Parameter 'pageSize' has invalid value '" + val + "'. Should be 1 - 10000.");
+    }
+    
+    
+    /**
+     * Parse comma-separated list of field names.
+     * @param val field list, e.g., "lidvid,title"
+     * @return list of field names or null
+     */
+    private static List<String> getFieldList(String val)
+    {
+        if(val == null) return null;
+        
+        List<String> list = new ArrayList<>();
+        for(String field: val.split(","))
+        {
+            field = field.trim();
+            if(!field.isEmpty()) list.add(field);
+        }
+        
+        return list.isEmpty() ? null : list;
+    }
+    
+    
     /**
      * Extract command-line filter parameters (-lidvid, -packageId, -all)
      * @param cmdLine
@@ -140,6 +200,20 @@ public class ExportDataCmd implements CliCommand
         System.out.println("  -auth <file>      Authentication config file");
         System.out.println("  -es <url>         Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>     Elasticsearch index name. Default is 'registry'");
+        System.out.println("  -pageSize <#>     Number of documents returned by one search request (1 - 10000).");
+        System.out.println("                    Default is 100");
+        System.out.println("  -includeFields <list>");
+        System.out.println("                    Comma-separated list of fields to export. Wildcards are supported.");
+        System.out.println("                    By default, all fields are exported.");
+        System.out.println("  -excludeFields <list>");
+        System.out.println("                    Comma-separated list of fields to exclude, e.g., BLOBs:");
+        System.out.println("                    -excludeFields ops:Label_File_Info/ops:blob");
+        System.out.println("  -slices <#>       Export in parallel using N slices. Each slice is saved");
+        System.out.println("                    into a separate file, e.g., 'docs-0.json'. Default is 1");
+        System.out.println("  -compress <type>  Compress output files: 'gzip' or 'none'. Default is 'none'.");
+        System.out.println("                    Compressed files have '.gz' extension, e.g., 'docs.json.gz'");
+        System.out.println("  -maxFileMb <#>    Split output into files of maximum N megabytes,");
+        System.out.println("                    e.g., 'docs-001.json', 'docs-002.json'. Default is 0 (don't split)");
         System.out.println();
     }
 
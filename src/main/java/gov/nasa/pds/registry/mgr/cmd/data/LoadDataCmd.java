@@ -4,7 +4,9 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.BiPredicate;
 
 import org.apache.commons.cli.CommandLine;
@@ -15,7 +17,12 @@ import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
 import gov.nasa.pds.registry.mgr.dao.DataLoader;
+import gov.nasa.pds.registry.mgr.dao.DataTypeCache;
+import gov.nasa.pds.registry.mgr.dao.FileLoadScheduler;
+import gov.nasa.pds.registry.mgr.dao.LoadCheckpoint;
+import gov.nasa.pds.registry.mgr.dao.LoadProgress;
 import gov.nasa.pds.registry.mgr.dao.SchemaUpdater;
 import gov.nasa.pds.registry.mgr.dao.SchemaUpdaterConfig;
 import gov.nasa.pds.registry.mgr.dd.LddLoader;
@@ -33,6 +40,14 @@ import gov.nasa.pds.registry.mgr.util.Logger;
  * If any of these fields are missing in current Elasticsearch registry index schema,
  * this command will try to add missing fields to the schema.
  * 
+ * If "-checkpoint" or "-resume" option is set, a checkpoint file is saved next 
+ * to each data file while it is being loaded. If loading is interrupted, 
+ * it can be resumed with "-resume" option. Checkpoint files are deleted 
+ * after all data files are loaded.
+ * 
+ * Several data files can be loaded concurrently ("-fileThreads" option).
+ * Files of "registry" and "registry-refs" indices share the load slots fairly.
+ * 
  * @author karpenko
  */
 public class LoadDataCmd implements CliCommand
@@ -42,6 +57,16 @@ public class LoadDataCmd implements CliCommand
     private String esUrl;
     private String indexName;
     private String authPath;
+    private int numThreads;
+    private int numFileThreads;
+    private int maxBatchMb;
+    private boolean adaptiveBatch;
+    private boolean memoryMapped;
+    private int gzipLevel;
+    private File failedDir;
+    private boolean checkpoint;
+    private boolean resume;
+    private boolean ddCache;
     
     
     /**
@@ -72,56 +97,91 @@ public class LoadDataCmd implements CliCommand
         if(!dir.exists() || !dir.isDirectory()) throw new Exception("Invalid directory " + dir.getAbsolutePath());
         
         String tmp = cmdLine.getOptionValue("updateSchema", "Y");
-        boolean updateSchema = parseYesNo("updateSchema", tmp);
+        boolean updateSchema = CliUtils.parseYesNo("updateSchema", tmp);
+        
+        ddCache = CliUtils.getDDCacheOption(cmdLine);
+        
+        numThreads = CliUtils.getPositiveInt(cmdLine, "threads", 1);
+        numFileThreads = CliUtils.getPositiveInt(cmdLine, "fileThreads", 1);
+        maxBatchMb = CliUtils.getPositiveInt(cmdLine, "maxBatchMb", 10);
+        
+        tmp = cmdLine.getOptionValue("adaptiveBatch", "N");
+        adaptiveBatch = CliUtils.parseYesNo("adaptiveBatch", tmp);
+        
+        tmp = cmdLine.getOptionValue("mmap", "N");
+        memoryMapped = CliUtils.parseYesNo("mmap", tmp);
+        
+        tmp = cmdLine.getOptionValue("gzip", "0");
+        gzipLevel = parseGzipLevel(tmp);
+        
+        failedDir = CliUtils.getFailedDir(cmdLine, dir);
+        
+        resume = cmdLine.hasOption("resume");
+        // Resumed load keeps saving checkpoints, so it can be resumed again
+        checkpoint = resume || cmdLine.hasOption("checkpoint");
         
         System.out.println("Elasticsearch URL: " + esUrl);
         System.out.println("            Index: " + indexName);
         System.out.println();
 
-        // Update schema
-        if(updateSchema)
+        RestClient client = null;
+        
+        try
         {
-            String lddCfgUrl = cmdLine.getOptionValue("ldd", Constants.DEFAULT_LDD_LIST_URL);
-            updateSchema(dir, lddCfgUrl);
+            // Elasticsearch client is shared by schema updater and data loaders
+            client = EsClientFactory.createRestClient(esUrl, authPath);
+            
+            // Update schema
+            if(updateSchema)
+            {
+                String lddCfgUrl = cmdLine.getOptionValue("ldd", Constants.DEFAULT_LDD_LIST_URL);
+                updateSchema(client, dir, lddCfgUrl);
+            }
+            
+            // Load data
+            loadData(client, dir);
+        }
+        catch(ResponseException ex)
+        {
+            throw new Exception(EsUtils.extractErrorMessage(ex));
+        }
+        finally
+        {
+            CloseUtils.close(client);
         }
-        
-        // Load data
-        loadData(dir);
     }
 
     
     /**
-     * Parse "yes/no" command line parameter. TODO: Move to a utility class.
-     * @param paramName Parameter name used to generate exception message.
-     * @param val String value to parse. Can be any of "y", "yes", "n", "no", upper or lower case.
-     * @return true for "yes", false for "no".
+     * Parse gzip compression level.
+     * @param val String value to parse. Should be 0 - 9.
+     * @return compression level
      * @throws Exception Throw exception if invalid value is passed.
      */
-    private boolean parseYesNo(String paramName, String val) throws Exception
+    private int parseGzipLevel(String val) throws Exception
     {
-        val = val.toLowerCase();
-        
-        if(val.equals("y") || val.equals("yes"))
+        try
         {
-            return true;
+            int level = Integer.parseInt(val);
+            if(level >= 0 && level <= 9) return level;
         }
-        
-        if(val.equals("n") || val.equals("no"))
+        catch(NumberFormatException ex)
         {
-            return false;
+            // Ignore
         }
         
-        throw new Exception("Parameter '" + paramName + "' has invalid value '" + val + "'");
+        throw new Exception("Parameter 'gzip' has invalid value '" + val + "'. Should be 0 - 9.");
     }
     
     
     /**
      * Update Elasticsearch schema
+     * @param client
      * @param dir
      * @param lddCfgUrl
      * @throws Exception
      */
-    private void updateSchema(File dir, String lddCfgUrl) throws Exception
+    private void updateSchema(RestClient client, File dir, String lddCfgUrl) throws Exception
     {
         File newFields = new File(dir, FIELDS_FILE);
         Logger.info("Updating schema with fields from " + newFields.getAbsolutePath());
@@ -131,40 +191,44 @@ public class LoadDataCmd implements CliCommand
         lddLoader.loadPds2EsDataTypeMap(LddUtils.getPds2EsDataTypeCfgFile());
         lddLoader.setElasticInfo(esUrl, indexName, authPath);
         
-        RestClient client = null;
-        
-        try
-        {
-            client = EsClientFactory.createRestClient(esUrl, authPath);
-            SchemaUpdaterConfig suCfg = new SchemaUpdaterConfig(indexName, lddCfgUrl);
-            SchemaUpdater su = new SchemaUpdater(client, lddLoader, suCfg);
-            su.updateSchema(newFields);
-        }
-        catch(ResponseException ex)
-        {
-            throw new Exception(EsUtils.extractErrorMessage(ex));
-        }
-        finally
-        {
-            CloseUtils.close(client);
-        }
+        SchemaUpdaterConfig suCfg = new SchemaUpdaterConfig(indexName, lddCfgUrl);
+        if(ddCache) suCfg.dataTypeCacheFile = DataTypeCache.getDefaultFile(esUrl, indexName);
+        SchemaUpdater su = new SchemaUpdater(client, lddLoader, suCfg);
+        su.updateSchema(newFields);
     }
     
     
     /**
      * Load data from JSON files generated by Harvest into "registry"
      * and "registry-refs" indices in Elasticsearch.
+     * @param client
      * @param dir
      * @throws Exception
      */
-    private void loadData(File dir) throws Exception
+    private void loadData(RestClient client, File dir) throws Exception
     {
+        // Progress of all concurrent loads
+        LoadProgress progress = new LoadProgress(5000);
+        
         // Loader for main metadata ("registry" index)
-        DataLoader registryLoader = new DataLoader(esUrl, indexName, authPath);
+        DataLoader registryLoader = new DataLoader(client, indexName);
+        configureLoader(registryLoader, progress);
         // Loader for references extracted from collection inventory files ("registry-refs" index)
-        DataLoader refsLoader = new DataLoader(esUrl, indexName + "-refs", authPath);
+        DataLoader refsLoader = new DataLoader(client, indexName + "-refs");
         refsLoader.setBatchSize(10);
+        configureLoader(refsLoader, progress);
+        
+        // Documents which could not be loaded
+        if(failedDir != null)
+        {
+            registryLoader.setDeadLetterFile(new File(failedDir, "registry-docs-failed.json"));
+            refsLoader.setDeadLetterFile(new File(failedDir, "refs-docs-failed.json"));
+        }
 
+        // Loaded files
+        List<File> files = new ArrayList<>();
+        FileLoadScheduler scheduler = new FileLoadScheduler(numFileThreads, progress);
+        
         // Find all JSON files in the @param dir directory
         Iterator<Path> it = Files.find(dir.toPath(), 1, new JsonMatcher()).iterator();
         while(it.hasNext())
@@ -173,22 +237,55 @@ public class LoadDataCmd implements CliCommand
             String fileName = file.getName();
             if(fileName.startsWith("registry-docs"))
             {
-                registryLoader.loadFile(file);
+                scheduler.addFile(registryLoader, file);
+                files.add(file);
             }
             else if(fileName.startsWith("refs-docs"))
             {
-                refsLoader.loadFile(file);
+                scheduler.addFile(refsLoader, file);
+                files.add(file);
             }
             else
             {
                 Logger.warn("Unknown file type: " + file.getAbsolutePath());
             }
         }
+        
+        scheduler.run();
+        
+        // All files were loaded. Checkpoints are not needed anymore.
+        if(checkpoint)
+        {
+            for(File file: files)
+            {
+                LoadCheckpoint.delete(file);
+            }
+        }
+    }
+    
+
+    /**
+     * Apply command-line batching and concurrency parameters to a data loader.
+     * NOTE: Batch size (number of records) should be set before calling this method.
+     * @param loader data loader
+     * @param progress aggregate progress of all loaders
+     */
+    private void configureLoader(DataLoader loader, LoadProgress progress)
+    {
+        loader.setNumThreads(numThreads);
+        loader.setMaxBatchBytes(maxBatchMb * 1024L * 1024L);
+        loader.setAdaptiveBatchSize(adaptiveBatch);
+        loader.setMemoryMapped(memoryMapped);
+        loader.setCompressionLevel(gzipLevel);
+        loader.setCheckpointEnabled(checkpoint);
+        loader.setResume(resume);
+        loader.setProgress(progress);
     }
     
 
     /**
-     * Inner class used by Files.find() to select all JSON files.
+     * Inner class used by Files.find() to select all JSON files,
+     * including gzip-compressed files ("*.json.gz").
      * 
      * @author karpenko
      *
@@ -199,7 +296,7 @@ public class LoadDataCmd implements CliCommand
         public boolean test(Path path, BasicFileAttributes attrs)
         {
             String fileName = path.getFileName().toString().toLowerCase();
-            return fileName.endsWith(".json");
+            return fileName.endsWith(".json") || fileName.endsWith(".json.gz");
         }
     }
 
@@ -222,6 +319,21 @@ public class LoadDataCmd implements CliCommand
         System.out.println("  -index <name>         Elasticsearch index name. Default is 'registry'");
         System.out.println("  -updateSchema <y/n>   Update registry schema. Default is 'yes'");
         System.out.println("  -ldd <url>            PDS LDD configuration URL");
+        System.out.println("  -ddCache <y/n>        Cache field data types in '~/.registry-manager' directory.");
+        System.out.println("                        Default is 'yes'");
+        System.out.println("  -threads <#>          Number of concurrent bulk load requests per file. Default is 1");
+        System.out.println("  -fileThreads <#>      Number of files to load concurrently. Default is 1");
+        System.out.println("  -maxBatchMb <#>       Maximum bulk load request size in megabytes. Default is 10");
+        System.out.println("  -adaptiveBatch <y/n>  Adjust batch size based on Elasticsearch response time. Default is 'no'");
+        System.out.println("  -mmap <y/n>           Read data files using memory mapping. Default is 'no'");
+        System.out.println("  -gzip <#>             Compress bulk requests with gzip. Compression level 1 (fastest)");
+        System.out.println("                        to 9 (best compression). Default is 0 (no compression)");
+        System.out.println("  -failedDir <path>     Save documents which could not be loaded to this directory");
+        System.out.println("                        and continue. By default, loading stops on the first error.");
+        System.out.println("  -checkpoint           Save load checkpoints ('*.json.checkpoint') next to data files,");
+        System.out.println("                        so an interrupted load can be resumed");
+        System.out.println("  -resume               Resume interrupted load. Skip data already loaded");
+        System.out.println("                        according to checkpoint files. Implies '-checkpoint'.");
 
         System.out.println();
     }
@@ -1,36 +1,53 @@
 package gov.nasa.pds.registry.mgr.cmd.data;
 
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.commons.cli.CommandLine;
 import org.elasticsearch.client.Request;
-import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 
-import com.google.gson.Gson;
-
 import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
+import gov.nasa.pds.registry.mgr.dao.DataLoader;
 import gov.nasa.pds.registry.mgr.dao.RegistryRequestBuilder;
+import gov.nasa.pds.registry.mgr.dao.TaskDao;
+import gov.nasa.pds.registry.mgr.dao.TaskMonitor;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
+import gov.nasa.pds.registry.mgr.util.file.IdListReader;
 
 
 /**
  * A CLI command to set PDS label archive status in Elasticsearch registry index.
  * Status can be updated by LidVid or PackageId.
  * 
+ * Status is set by a stored script which is compiled by Elasticsearch only once.
+ * The status is passed as a script parameter. Updates by LidVid and PackageId 
+ * run as asynchronous, automatically sliced (and optionally throttled) 
+ * "_update_by_query" tasks.
+ * 
+ * Status of many products can be updated from a list of LidVids ("-idList")
+ * or from a CSV file with LidVid and status pairs ("-csv"). These updates are 
+ * sent as "_bulk" partial updates by the data loader, so every failed 
+ * document is reported separately.
+ * 
  * @author karpenko
  */
 public class SetArchiveStatusCmd implements CliCommand
 {
+    // Number of partial updates in one "_bulk" request
+    private static final int BULK_BATCH_SIZE = 1000;
+    
     private Set<String> statusNames; 
     private String filterMessage;
 
@@ -72,18 +89,27 @@ public class SetArchiveStatusCmd implements CliCommand
         String indexName = cmdLine.getOptionValue("index", Constants.DEFAULT_REGISTRY_INDEX);
         String authPath = cmdLine.getOptionValue("auth");
         
+        if(cmdLine.hasOption("idList") || cmdLine.hasOption("csv"))
+        {
+            updateBulk(cmdLine, esUrl, indexName, authPath);
+            return;
+        }
+        
         String status = getStatus(cmdLine);
         
         String query = buildEsQuery(cmdLine, status);
         if(query == null)
         {
-            throw new Exception("One of the following options is required: -lidvid, -packageId");
+            throw new Exception("One of the following options is required: -lidvid, -packageId, -idList, -csv");
         }
 
+        double requestsPerSecond = CliUtils.getRequestsPerSecond(cmdLine);
+
         System.out.println("Elasticsearch URL: " + esUrl);
         System.out.println("            Index: " + indexName);
         System.out.println("       New status: " + status);
         System.out.println(filterMessage);
+        CliUtils.printThrottle(requestsPerSecond);
         System.out.println();
 
         RestClient client = null;
@@ -93,15 +119,10 @@ public class SetArchiveStatusCmd implements CliCommand
             // Create Elasticsearch client
             client = EsClientFactory.createRestClient(esUrl, authPath);
 
-            // Create request
-            Request req = new Request("POST", "/" + indexName + "/_update_by_query");
-            req.setJsonEntity(query);
+            // Create or update stored script
+            putStoredScript(client);
             
-            // Execute request
-            Response resp = client.performRequest(req);
-            double numDeleted = extractNumUpdated(resp); 
-            
-            System.out.format("Updated %.0f document(s)\n", numDeleted);
+            updateAsync(client, indexName, query, requestsPerSecond);
         }
         catch(ResponseException ex)
         {
@@ -115,31 +136,189 @@ public class SetArchiveStatusCmd implements CliCommand
 
     
     /**
-     * Extract number of updated records from Elasticsearch API response.
-     * @param resp
-     * @return number of updated records
+     * Update archive status of a list of products by "_bulk" partial updates.
+     * @param cmdLine command line
+     * @param esUrl Elasticsearch URL
+     * @param indexName Elasticsearch index name
+     * @param authPath authentication config file
+     * @throws Exception an exception
      */
-    @SuppressWarnings("rawtypes")
-    private double extractNumUpdated(Response resp)
+    private void updateBulk(CommandLine cmdLine, String esUrl, String indexName, String authPath) throws Exception
     {
+        // Key: LidVid, value: status
+        Map<String, String> updates;
+        
+        String idListPath = cmdLine.getOptionValue("idList");
+        String csvPath = cmdLine.getOptionValue("csv");
+        
+        if(idListPath != null)
+        {
+            String status = getStatus(cmdLine);
+            updates = new LinkedHashMap<>();
+            for(String lidvid: IdListReader.read(idListPath))
+            {
+                updates.put(lidvid, status);
+            }
+            
+            filterMessage = "       New status: " + status + "\n"
+                    + "      LIDVID list: " + (IdListReader.STDIN.equals(idListPath) ? "<stdin>" : idListPath);
+        }
+        else
+        {
+            updates = readStatusCsv(csvPath);
+            filterMessage = "         CSV file: " + csvPath;
+        }
+        
+        int numThreads = CliUtils.getPositiveInt(cmdLine, "threads", 1);
+        File failedDir = CliUtils.getFailedDir(cmdLine, null);
+        
+        System.out.println("Elasticsearch URL: " + esUrl);
+        System.out.println("            Index: " + indexName);
+        System.out.println(filterMessage);
+        System.out.println("Number of LIDVIDs: " + updates.size());
+        System.out.println();
+        
+        if(updates.isEmpty()) return;
+        
+        RestClient client = null;
+        DataLoader.BulkWriter writer = null;
+        
         try
         {
-            InputStream is = resp.getEntity().getContent();
-            Reader rd = new InputStreamReader(is);
+            client = EsClientFactory.createRestClient(esUrl, authPath);
+            
+            DataLoader loader = new DataLoader(client, indexName);
+            loader.setBatchSize(BULK_BATCH_SIZE);
+            loader.setNumThreads(numThreads);
+            if(failedDir != null)
+            {
+                loader.setDeadLetterFile(new File(failedDir, "archive-status-failed.json"));
+            }
+            
+            RegistryRequestBuilder bld = new RegistryRequestBuilder();
+            // Data lines are the same for all products with the same status
+            Map<String, String> docs = new TreeMap<>();
+            
+            writer = loader.openBulkWriter();
+            for(Map.Entry<String, String> entry: updates.entrySet())
+            {
+                String status = entry.getValue();
+                String doc = docs.get(status);
+                if(doc == null)
+                {
+                    doc = bld.createBulkUpdateStatusDoc(status);
+                    docs.put(status, doc);
+                }
+                
+                writer.write(bld.createBulkUpdateAction(entry.getKey()), doc);
+            }
+            writer.finish();
             
-            Gson gson = new Gson();
-            Object obj = gson.fromJson(rd, Object.class);
-            rd.close();
+            System.out.format("Updated %d document(s)\n", loader.getTotalRecords());
+        }
+        catch(ResponseException ex)
+        {
+            throw new Exception(EsUtils.extractErrorMessage(ex));
+        }
+        finally
+        {
+            CloseUtils.close(writer);
+            CloseUtils.close(client);
+        }
+    }
+    
+    
+    /**
+     * Read a CSV file with LidVid and status pairs, e.g., "urn:nasa:pds:abc::1.0,ARCHIVED".
+     * Optional header line ("lidvid,status"), empty lines and lines starting 
+     * with '#' are skipped.
+     * @param path CSV file path
+     * @return key: LidVid, value: status
+     * @throws Exception an exception
+     */
+    private Map<String, String> readStatusCsv(String path) throws Exception
+    {
+        Map<String, String> updates = new LinkedHashMap<>();
+        
+        BufferedReader rd = new BufferedReader(new FileReader(path));
+        try
+        {
+            String line;
+            int lineNum = 0;
             
-            obj = ((Map)obj).get("updated");
-            return (Double)obj;
+            while((line = rd.readLine()) != null)
+            {
+                lineNum++;
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")) continue;
+                
+                String tokens[] = line.split(",");
+                if(tokens.length != 2) throw new Exception("Invalid CSV line " + lineNum + ": " + line);
+                
+                String lidvid = tokens[0].trim();
+                String status = tokens[1].trim().toUpperCase();
+                
+                // Header
+                if(lineNum == 1 && "lidvid".equalsIgnoreCase(lidvid)) continue;
+                
+                if(!statusNames.contains(status))
+                {
+                    throw new Exception("Invalid status '" + tokens[1].trim() + "' in CSV line " + lineNum);
+                }
+                
+                updates.put(lidvid, status);
+            }
         }
-        catch(Exception ex)
+        finally
         {
-            return 0;
+            CloseUtils.close(rd);
         }
+        
+        return updates;
     }
-
+    
+    
+    /**
+     * Create or update stored script which sets archive status.
+     * @param client Elasticsearch client
+     * @throws Exception an exception
+     */
+    private static void putStoredScript(RestClient client) throws Exception
+    {
+        RegistryRequestBuilder bld = new RegistryRequestBuilder();
+        
+        Request req = new Request("PUT", "/_scripts/" + Constants.SET_ARCHIVE_STATUS_SCRIPT);
+        req.setJsonEntity(bld.createSetArchiveStatusScriptRequest());
+        client.performRequest(req);
+    }
+    
+    
+    /**
+     * Run "_update_by_query" as an asynchronous task and wait for completion.
+     * @param client Elasticsearch client
+     * @param indexName Elasticsearch index name
+     * @param query "_update_by_query" request
+     * @param requestsPerSecond throttle or -1 if the task is not throttled
+     * @throws Exception an exception
+     */
+    private static void updateAsync(RestClient client, String indexName, String query, 
+            double requestsPerSecond) throws Exception
+    {
+        TaskDao dao = new TaskDao(client);
+        TaskMonitor monitor = new TaskMonitor(dao);
+        
+        String taskId = dao.submitByQueryTask(indexName, "_update_by_query", query, requestsPerSecond);
+        monitor.add(taskId, indexName);
+        monitor.waitForAll();
+        
+        System.out.format("Updated %d document(s)\n", monitor.getTotals().get(indexName));
+        
+        if(!monitor.getErrors().isEmpty())
+        {
+            throw new Exception("Update task failed");
+        }
+    }
+    
     
     /**
      * Create Elasticsearch query to update PDS label status
@@ -214,11 +393,21 @@ public class SetArchiveStatusCmd implements CliCommand
         }
         
         System.out.println("  -lidvid <id>       Update archive status of a document with given lidvid, or");
-        System.out.println("  -packageId <id>    Update archive status of all documents with given package id"); 
+        System.out.println("  -packageId <id>    Update archive status of all documents with given package id, or"); 
+        System.out.println("  -idList <path>     Update archive status of documents with LIDVIDs from a file");
+        System.out.println("                     (one LIDVID per line). Use '-' to read from standard input.");
+        System.out.println("Required parameters (CSV mode, no '-status'):");
+        System.out.println("  -csv <path>        CSV file with LIDVID and status pairs (lidvid,status)");
         System.out.println("Optional parameters:");
         System.out.println("  -auth <file>       Authentication config file");
         System.out.println("  -es <url>          Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>      Elasticsearch index name. Default is 'registry'");
+        System.out.println("  -threads <#>       Number of concurrent bulk requests (-idList and -csv modes).");
+        System.out.println("                     Default is 1");
+        System.out.println("  -failedDir <path>  Save updates which failed (e.g., unknown LIDVIDs) to this directory.");
+        System.out.println("                     If not set, the update stops on the first failed document.");
+        System.out.println("  -requestsPerSecond <#>  Throttle the update task (-lidvid and -packageId modes).");
+        System.out.println("                     Use 'manage-tasks' command to rethrottle or cancel running tasks.");
         System.out.println();
     }
 
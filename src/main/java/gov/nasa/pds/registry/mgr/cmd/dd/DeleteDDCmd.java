@@ -1,29 +1,24 @@
 package gov.nasa.pds.registry.mgr.cmd.dd;
 
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.Map;
-
 import org.apache.commons.cli.CommandLine;
-import org.elasticsearch.client.Request;
-import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 
-import com.google.gson.Gson;
-
 import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
 import gov.nasa.pds.registry.mgr.dao.RegistryRequestBuilder;
+import gov.nasa.pds.registry.mgr.dao.TaskDao;
+import gov.nasa.pds.registry.mgr.dao.TaskMonitor;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
 
 
 /**
  * A CLI command to delete records from the data dictionary index in Elasticsearch.
  * Data can be deleted by ID, or namespace. All data can be also deleted.
+ * Data is deleted by an asynchronous (optionally throttled) task.
  *  
  * @author karpenko
  */
@@ -58,9 +53,12 @@ public class DeleteDDCmd implements CliCommand
             throw new Exception("One of the following options is required: -id, -ns, -all");
         }
 
+        double requestsPerSecond = CliUtils.getRequestsPerSecond(cmdLine);
+
         System.out.println("Elasticsearch URL: " + esUrl);
         System.out.println("            Index: " + indexName);
         System.out.println(filterMessage);
+        CliUtils.printThrottle(requestsPerSecond);
         System.out.println();
         
         RestClient client = null;
@@ -70,15 +68,21 @@ public class DeleteDDCmd implements CliCommand
             // Create Elasticsearch client
             client = EsClientFactory.createRestClient(esUrl, authPath);
 
-            // Create request
-            Request req = new Request("POST", "/" + indexName + "-dd" + "/_delete_by_query");
-            req.setJsonEntity(query);
+            // Run delete task and wait for completion
+            TaskDao dao = new TaskDao(client);
+            TaskMonitor monitor = new TaskMonitor(dao);
             
-            // Execute request
-            Response resp = client.performRequest(req);
-            double numDeleted = extractNumDeleted(resp); 
+            String ddIndexName = indexName + "-dd";
+            String taskId = dao.submitByQueryTask(ddIndexName, "_delete_by_query", query, requestsPerSecond);
+            monitor.add(taskId, ddIndexName);
+            monitor.waitForAll();
             
-            System.out.format("Deleted %.0f document(s)\n", numDeleted);
+            System.out.format("Deleted %d document(s)\n", monitor.getTotals().get(ddIndexName));
+            
+            if(!monitor.getErrors().isEmpty())
+            {
+                throw new Exception("Delete task failed");
+            }
         }
         catch(ResponseException ex)
         {
@@ -91,33 +95,6 @@ public class DeleteDDCmd implements CliCommand
     }
 
     
-    /**
-     * Extract number of deleted records from Elasticsearch delete API response.
-     * @param resp
-     * @return number of deleted records
-     */
-    @SuppressWarnings("rawtypes")
-    private double extractNumDeleted(Response resp)
-    {
-        try
-        {
-            InputStream is = resp.getEntity().getContent();
-            Reader rd = new InputStreamReader(is);
-            
-            Gson gson = new Gson();
-            Object obj = gson.fromJson(rd, Object.class);
-            rd.close();
-            
-            obj = ((Map)obj).get("deleted");
-            return (Double)obj;
-        }
-        catch(Exception ex)
-        {
-            return 0;
-        }
-    }
-    
-    
     /**
      * Create Elasticsearch query to delete records from data dictionary index.
      * @param cmdLine
@@ -170,6 +147,8 @@ public class DeleteDDCmd implements CliCommand
         System.out.println("  -auth <file>      Authentication config file");
         System.out.println("  -es <url>         Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>     Elasticsearch index name. Default is 'registry'");
+        System.out.println("  -requestsPerSecond <#>  Throttle the delete task (documents per second).");
+        System.out.println("                    Use 'manage-tasks' command to rethrottle or cancel running tasks.");
         System.out.println();
     }
 
@@ -6,6 +6,7 @@ import org.apache.commons.cli.CommandLine;
 
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.ExportOptions;
 import gov.nasa.pds.registry.mgr.dao.DDDataExporter;
 
 
@@ -43,12 +44,18 @@ public class ExportDDCmd implements CliCommand
         String esUrl = cmdLine.getOptionValue("es", "http://localhost:9200");
         String indexName = cmdLine.getOptionValue("index", Constants.DEFAULT_REGISTRY_INDEX);
         String authPath = cmdLine.getOptionValue("auth");
+        int numSlices = ExportOptions.getNumSlices(cmdLine);
+        boolean gzip = ExportOptions.getCompression(cmdLine);
+        long maxFileSize = ExportOptions.getMaxFileSize(cmdLine);
 
         System.out.println("Elasticsearch URL: " + esUrl);
         System.out.println("            Index: " + indexName);
         System.out.println();
         
         DDDataExporter exp = new DDDataExporter(esUrl, indexName, authPath);
+        exp.setNumSlices(numSlices);
+        exp.setCompression(gzip);
+        exp.setMaxFileSize(maxFileSize);
         exp.export(new File(filePath));
     }
 
@@ -69,6 +76,12 @@ public class ExportDDCmd implements CliCommand
         System.out.println("  -auth <file>      Authentication config file");
         System.out.println("  -es <url>         Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>     Elasticsearch index name. Default is 'registry'");
+        System.out.println("  -slices <#>       Export in parallel using N slices. Each slice is saved");
+        System.out.println("                    into a separate file, e.g., 'dd-0.json'. Default is 1");
+        System.out.println("  -compress <type>  Compress output files: 'gzip' or 'none'. Default is 'none'.");
+        System.out.println("                    Compressed files have '.gz' extension, e.g., 'dd.json.gz'");
+        System.out.println("  -maxFileMb <#>    Split output into files of maximum N megabytes,");
+        System.out.println("                    e.g., 'dd-001.json', 'dd-002.json'. Default is 0 (don't split)");
         System.out.println();
     }
 
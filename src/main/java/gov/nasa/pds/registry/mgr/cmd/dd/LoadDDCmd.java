@@ -1,7 +1,13 @@
 package gov.nasa.pds.registry.mgr.cmd.dd;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.cli.CommandLine;
 
@@ -9,6 +15,7 @@ import com.opencsv.CSVReader;
 
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
 import gov.nasa.pds.registry.mgr.dao.DataLoader;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
@@ -53,14 +60,19 @@ public class LoadDDCmd implements CliCommand
         System.out.println("Load data dictionary");
         System.out.println();        
         System.out.println("Required parameters, one of:");
-        System.out.println("  -dd <path>         PDS4 LDD data dictionary file (JSON)");
+        System.out.println("  -dd <path>         PDS4 LDD data dictionary file (JSON) or a directory.");
+        System.out.println("                     All '*.json' files in a directory are loaded.");
+        System.out.println("  -ddList <path>     A text file with a list of PDS4 LDD files (one path per line).");
+        System.out.println("                     Relative paths are resolved against the list file directory.");
         System.out.println("  -dump <path>       Data dump created by 'export-dd' command (NJSON)");
         System.out.println("  -csv <path>        Custom data dictionary file in CSV format");
         System.out.println("Optional parameters:");
         System.out.println("  -auth <file>       Authentication config file");
         System.out.println("  -es <url>          Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>      Elasticsearch index name. Default is 'registry'");        
-        System.out.println("  -ns <namespace>    LDD namespace. Can be used with -dd parameter.");
+        System.out.println("  -ns <namespace>    LDD namespace. Can be used with -dd parameter (single file).");
+        System.out.println("  -threads <#>       Number of LDD files to parse and load concurrently.");
+        System.out.println("                     Default is the number of CPU cores.");
         System.out.println();
     }
 
@@ -79,13 +91,26 @@ public class LoadDDCmd implements CliCommand
         this.authPath = cmdLine.getOptionValue("auth");
 
         String path = cmdLine.getOptionValue("dd");
-        if(path != null)
+        if(path != null && !new File(path).isDirectory())
         {
             String namespace = cmdLine.getOptionValue("ns");
             loadLdd(path, namespace);
             return;
         }
         
+        String listPath = cmdLine.getOptionValue("ddList");
+        if(path != null || listPath != null)
+        {
+            if(cmdLine.hasOption("ns"))
+            {
+                throw new Exception("Parameter '-ns' can only be used with a single LDD file");
+            }
+            
+            List<File> files = (path != null) ? listLddFiles(new File(path)) : readLddList(new File(listPath));
+            loadLdds(files, getNumThreads(cmdLine, files.size()));
+            return;
+        }
+        
         path = cmdLine.getOptionValue("dump");
         if(path != null)
         {
@@ -100,7 +125,7 @@ public class LoadDDCmd implements CliCommand
             return;
         }        
 
-        throw new Exception("One of the following options is required: -dd, -dump, -csv");
+        throw new Exception("One of the following options is required: -dd, -ddList, -dump, -csv");
     }
 
 
@@ -134,6 +159,128 @@ public class LoadDDCmd implements CliCommand
     }
     
     
+    /**
+     * Load several PDS LDD JSON files. Files are parsed concurrently 
+     * and loaded by one shared bulk load pipeline.
+     * @param files LDD files
+     * @param numThreads number of LDD files to parse concurrently
+     * @throws Exception an exception
+     */
+    private void loadLdds(List<File> files, int numThreads) throws Exception
+    {
+        if(files.isEmpty()) throw new Exception("No LDD files to load");
+        
+        System.out.println("Elasticsearch URL: " + esUrl);
+        System.out.println("            Index: " + indexName);
+        System.out.println("Data dictionaries: " + files.size());
+        System.out.println();
+        
+        // Init LDD loader
+        LddLoader loader = new LddLoader();
+        loader.loadPds2EsDataTypeMap(LddUtils.getPds2EsDataTypeCfgFile());
+        loader.setElasticInfo(esUrl, indexName, authPath);
+
+        // Load LDDs
+        List<LddLoader.LoadStatus> statusList = loader.load(files, numThreads);
+
+        // Print status of each namespace
+        int numFailed = 0;
+        Set<String> namespaces = new HashSet<>();
+        
+        for(LddLoader.LoadStatus status: statusList)
+        {
+            if(status.error != null)
+            {
+                numFailed++;
+                Logger.error("FAILED " + status.file.getAbsolutePath() + ": " + status.error.getMessage());
+                continue;
+            }
+            
+            Logger.info("Loaded namespace '" + status.namespace + "', version " + status.version 
+                    + " (" + status.numRecords + " records) from " + status.file.getAbsolutePath());
+
+            if(!namespaces.add(status.namespace))
+            {
+                Logger.warn("Namespace '" + status.namespace + "' was loaded from more than one file");
+            }
+        }
+        
+        if(numFailed > 0)
+        {
+            throw new Exception("Could not load " + numFailed + " of " + files.size() + " data dictionaries");
+        }
+    }
+    
+    
+    /**
+     * Get all LDD JSON files ("*.json") in a directory.
+     * @param dir a directory
+     * @return sorted list of files
+     * @throws Exception an exception
+     */
+    private static List<File> listLddFiles(File dir) throws Exception
+    {
+        File[] files = dir.listFiles((File file) -> 
+            file.isFile() && file.getName().toLowerCase().endsWith(".json"));
+        if(files == null) throw new Exception("Could not list files in " + dir.getAbsolutePath());
+        
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+    
+    
+    /**
+     * Read a list of LDD files. There is one file path per line. 
+     * Empty lines and comments (lines starting with '#') are ignored.
+     * Relative paths are resolved against the directory of the list file.
+     * @param listFile a file with a list of LDD files
+     * @return list of files
+     * @throws Exception an exception
+     */
+    private static List<File> readLddList(File listFile) throws Exception
+    {
+        List<File> files = new ArrayList<>();
+        File baseDir = listFile.getAbsoluteFile().getParentFile();
+        
+        BufferedReader rd = new BufferedReader(new FileReader(listFile));
+        try
+        {
+            String line;
+            while((line = rd.readLine()) != null)
+            {
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")) continue;
+                
+                File file = new File(line);
+                if(!file.isAbsolute()) file = new File(baseDir, line);
+                if(!file.isFile()) throw new Exception("Invalid LDD file " + file.getAbsolutePath());
+                
+                files.add(file);
+            }
+        }
+        finally
+        {
+            CloseUtils.close(rd);
+        }
+        
+        return files;
+    }
+    
+    
+    /**
+     * Get value of "-threads" command line parameter.
+     * @param cmdLine command line
+     * @param numFiles number of LDD files
+     * @return number of threads. Default is the number of processors, but not more than the number of files.
+     * @throws Exception Throw exception if invalid value is passed.
+     */
+    private static int getNumThreads(CommandLine cmdLine, int numFiles) throws Exception
+    {
+        int num = Runtime.getRuntime().availableProcessors();
+        return CliUtils.getPositiveInt(cmdLine, "threads", Math.max(1, Math.min(num, numFiles)));
+    }
+    
+    
     /**
      * Load Elasticsearch data dictionary data dump
      * @param path
@@ -164,9 +311,8 @@ public class LoadDDCmd implements CliCommand
         System.out.println();
         
 
-        File tempOutFile = getTempOutFile();
-        
-        DDNJsonWriter writer = null;
+        // Parse and validate all records before loading anything
+        DDNJsonWriter writer = new DDNJsonWriter();
         CSVReader rd = new CSVReader(new FileReader(path));
         
         try
@@ -176,9 +322,6 @@ public class LoadDDCmd implements CliCommand
             if(header == null) return;
             validateCsvHeader(header);
             
-            Logger.info("Creating temprary ES NJSON " + tempOutFile.getAbsolutePath());
-            writer = new DDNJsonWriter(tempOutFile);
-            
             int line = 1;
             String[] values = null;
             while((values = rd.readNext()) != null)
@@ -191,15 +334,21 @@ public class LoadDDCmd implements CliCommand
         finally
         {
             CloseUtils.close(rd);
-            CloseUtils.close(writer);
         }
         
-        // Load temporary file into data dictionary index
+        // Load records directly into data dictionary index
         DataLoader loader = new DataLoader(esUrl, indexName + "-dd", authPath);
-        loader.loadFile(tempOutFile);
+        DataLoader.BulkWriter bulkWriter = loader.openBulkWriter();
         
-        // Delete temporary file
-        tempOutFile.delete();
+        try
+        {
+            writer.writeTo(bulkWriter);
+            bulkWriter.finish();
+        }
+        finally
+        {
+            CloseUtils.close(bulkWriter);
+        }
     }
     
     
@@ -271,13 +420,5 @@ public class LoadDDCmd implements CliCommand
         if(!esFieldNameExists) throw new Exception("Invalid CSV file header. Missing 'es_field_name' column");
         if(!esDataTypeExists) throw new Exception("Invalid CSV file header. Missing 'es_data_type' column");
     }
-    
-    
-    private File getTempOutFile()
-    {
-        File tempDir = new File(System.getProperty("java.io.tmpdir"));
-        File file = new File(tempDir, "pds-registry-dd.tmp.json");
-        return file;
-    }
 
 }
@@ -10,6 +10,8 @@ import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
 import gov.nasa.pds.registry.mgr.Constants;
 import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
+import gov.nasa.pds.registry.mgr.dao.DataTypeCache;
 import gov.nasa.pds.registry.mgr.dao.SchemaUpdater;
 import gov.nasa.pds.registry.mgr.dao.SchemaUpdaterConfig;
 import gov.nasa.pds.registry.mgr.dd.LddLoader;
@@ -53,6 +55,7 @@ public class UpdateSchemaCmd implements CliCommand
         String indexName = cmdLine.getOptionValue("index", Constants.DEFAULT_REGISTRY_INDEX);
         String authPath = cmdLine.getOptionValue("auth");
         String lddCfgUrl = cmdLine.getOptionValue("ldd", Constants.DEFAULT_LDD_LIST_URL);
+        boolean ddCache = CliUtils.getDDCacheOption(cmdLine);
         
         Logger.info("Elasticsearch URL: " + esUrl);
         Logger.info("Index: " + indexName);
@@ -67,6 +70,7 @@ public class UpdateSchemaCmd implements CliCommand
         {
             client = EsClientFactory.createRestClient(esUrl, authPath);
             SchemaUpdaterConfig suCfg = new SchemaUpdaterConfig(indexName, lddCfgUrl);
+            if(ddCache) suCfg.dataTypeCacheFile = DataTypeCache.getDefaultFile(esUrl, indexName);
             SchemaUpdater su = new SchemaUpdater(client, lddLoader, suCfg);
             su.updateSchema(new File(filePath));
             Logger.info("Done");
@@ -99,6 +103,8 @@ public class UpdateSchemaCmd implements CliCommand
         System.out.println("  -es <url>        Elasticsearch URL. Default is http://localhost:9200");
         System.out.println("  -index <name>    Elasticsearch index name. Default is 'registry'");
         System.out.println("  -ldd <url>       PDS LDD configuration url. Default is 'TBD'");        
+        System.out.println("  -ddCache <y/n>   Cache field data types in '~/.registry-manager' directory.");
+        System.out.println("                   Default is 'yes'");
         System.out.println();
     }
 
@@ -73,7 +73,7 @@ public class CreateRegistryCmd implements CliCommand
             // Data dictionary
             createIndex("elastic/data-dic.json", indexName + "-dd", 1, replicas);
             // Load data
-            DataLoader dl = new DataLoader(esUrl, indexName + "-dd", authPath);
+            DataLoader dl = new DataLoader(client, indexName + "-dd");
             File zipFile = getDataDicFile();
             dl.loadZippedFile(zipFile, "dd.json");
         }
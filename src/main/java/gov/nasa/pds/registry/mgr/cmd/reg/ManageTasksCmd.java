@@ -0,0 +1,146 @@
+package gov.nasa.pds.registry.mgr.cmd.reg;
+
+import java.util.List;
+
+import org.apache.commons.cli.CommandLine;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+
+import gov.nasa.pds.registry.common.es.client.EsClientFactory;
+import gov.nasa.pds.registry.common.es.client.EsUtils;
+import gov.nasa.pds.registry.mgr.cmd.CliCommand;
+import gov.nasa.pds.registry.mgr.cmd.CliUtils;
+import gov.nasa.pds.registry.mgr.dao.TaskDao;
+import gov.nasa.pds.registry.mgr.util.CloseUtils;
+
+
+/**
+ * A CLI command to manage running Elasticsearch "by query" tasks started by
+ * maintenance commands, such as "delete-data", "delete-dd" and "set-archive-status".
+ * Running tasks can be listed, rethrottled and cancelled.
+ *
+ * @author karpenko
+ */
+public class ManageTasksCmd implements CliCommand
+{
+    /**
+     * Constructor
+     */
+    public ManageTasksCmd()
+    {
+    }
+
+
+    @Override
+    public void run(CommandLine cmdLine) throws Exception
+    {
+        if(cmdLine.hasOption("help"))
+        {
+            printHelp();
+            return;
+        }
+
+        String esUrl = cmdLine.getOptionValue("es", "http://localhost:9200");
+        String authPath = cmdLine.getOptionValue("auth");
+
+        String rethrottleId = cmdLine.getOptionValue("rethrottle");
+        String cancelId = cmdLine.getOptionValue("cancel");
+
+        if(rethrottleId == null && cancelId == null && !cmdLine.hasOption("list"))
+        {
+            throw new Exception("One of the following options is required: -list, -rethrottle, -cancel");
+        }
+
+        if(rethrottleId != null && !cmdLine.hasOption("requestsPerSecond"))
+        {
+            throw new Exception("Missing required parameter '-requestsPerSecond'");
+        }
+        double requestsPerSecond = CliUtils.getRequestsPerSecond(cmdLine);
+
+        System.out.println("Elasticsearch URL: " + esUrl);
+        System.out.println();
+
+        RestClient client = null;
+
+        try
+        {
+            client = EsClientFactory.createRestClient(esUrl, authPath);
+            TaskDao dao = new TaskDao(client);
+
+            if(rethrottleId != null)
+            {
+                dao.rethrottle(rethrottleId, requestsPerSecond);
+                System.out.println("Task " + rethrottleId + " throttle: " + CliUtils.formatThrottle(requestsPerSecond));
+            }
+            else if(cancelId != null)
+            {
+                dao.cancel(cancelId);
+                System.out.println("Cancelled task " + cancelId);
+            }
+            else
+            {
+                listTasks(dao);
+            }
+        }
+        catch(ResponseException ex)
+        {
+            throw new Exception(EsUtils.extractErrorMessage(ex));
+        }
+        finally
+        {
+            CloseUtils.close(client);
+        }
+    }
+
+
+    /**
+     * Print running "by query" tasks
+     * @param dao task DAO
+     * @throws Exception an exception
+     */
+    private static void listTasks(TaskDao dao) throws Exception
+    {
+        List<TaskDao.TaskStatus> tasks = dao.listByQueryTasks();
+        if(tasks.isEmpty())
+        {
+            System.out.println("There are no running tasks");
+            return;
+        }
+
+        for(TaskDao.TaskStatus task: tasks)
+        {
+            System.out.println("Task: " + task.taskId);
+            System.out.println("  Action: " + task.action);
+            if(task.description != null)
+            {
+                System.out.println("  Description: " + task.description);
+            }
+            System.out.println("  Running time: " + (task.runningTimeMillis / 1000) + " sec");
+            System.out.println("  Progress: " + task.getNumProcessed() + " of " + task.total + " document(s)");
+            System.out.println("  Throttle: " + CliUtils.formatThrottle(task.requestsPerSecond));
+        }
+    }
+
+
+    /**
+     * Print help screen
+     */
+    public void printHelp()
+    {
+        System.out.println("Usage: registry-manager manage-tasks <options>");
+
+        System.out.println();
+        System.out.println("List, rethrottle or cancel running delete and update tasks");
+        System.out.println();
+        System.out.println("Required parameters, one of:");
+        System.out.println("  -list                List running delete and update tasks");
+        System.out.println("  -rethrottle <id>     Change throttle of a running task. Requires '-requestsPerSecond'");
+        System.out.println("  -cancel <id>         Cancel a running task");
+        System.out.println("Optional parameters:");
+        System.out.println("  -auth <file>         Authentication config file");
+        System.out.println("  -es <url>            Elasticsearch URL. Default is http://localhost:9200");
+        System.out.println("  -requestsPerSecond <#>  New throttle (documents per second) or 'unlimited'");
+        System.out.println();
+    }
+
+}
@@ -0,0 +1,88 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+/**
+ * Adaptive "_bulk" batch size controller. 
+ * 
+ * <p>The controller adjusts number of records per batch based on observed 
+ * "_bulk" request latency and Elasticsearch rejections (HTTP 429 - Too Many Requests).
+ * The batch size grows while requests are fast, shrinks when requests
+ * are slower than the target latency, and is cut in half on every rejection
+ * (additive increase / multiplicative decrease).
+ * 
+ * <p>This class is thread-safe. It can be shared by several loader threads.
+ * 
+ * @author karpenko
+ */
+public class BatchSizeController
+{
+    private int minSize;
+    private int maxSize;
+    private long targetLatency;
+    
+    private int batchSize;
+    
+    
+    /**
+     * Constructor
+     * @param initialSize initial batch size (number of records)
+     * @param minSize minimum batch size
+     * @param maxSize maximum batch size
+     * @param targetLatency target "_bulk" request latency in milliseconds
+     */
+    public BatchSizeController(int initialSize, int minSize, int maxSize, long targetLatency)
+    {
+        if(minSize <= 0) throw new IllegalArgumentException("Minimum batch size should be > 0");
+        if(maxSize < minSize) throw new IllegalArgumentException("Maximum batch size should be >= minimum batch size");
+        if(targetLatency <= 0) throw new IllegalArgumentException("Target latency should be > 0");
+        
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetLatency = targetLatency;
+        
+        this.batchSize = Math.max(minSize, Math.min(maxSize, initialSize));
+    }
+    
+    
+    /**
+     * Get current batch size
+     * @return number of records per batch
+     */
+    public synchronized int getBatchSize()
+    {
+        return batchSize;
+    }
+    
+    
+    /**
+     * Call this method after each successful "_bulk" request.
+     * @param numRecords number of records in the batch
+     * @param latency request latency in milliseconds
+     */
+    public synchronized void onSuccess(int numRecords, long latency)
+    {
+        // Batch was cut by the size in bytes or by the end of data. 
+        // Don't grow the batch size based on a partial batch.
+        boolean fullBatch = (numRecords >= batchSize);
+        
+        if(latency > targetLatency)
+        {
+            // Slow request. Shrink by 25%.
+            batchSize = Math.max(minSize, batchSize - Math.max(1, batchSize / 4));
+        }
+        else if(latency < targetLatency / 2 && fullBatch)
+        {
+            // Fast request. Grow by 10%.
+            batchSize = Math.min(maxSize, batchSize + Math.max(1, batchSize / 10));
+        }
+    }
+    
+    
+    /**
+     * Call this method when Elasticsearch rejects a "_bulk" request 
+     * (HTTP 429 - Too Many Requests).
+     */
+    public synchronized void onRejected()
+    {
+        batchSize = Math.max(minSize, batchSize / 2);
+    }
+}
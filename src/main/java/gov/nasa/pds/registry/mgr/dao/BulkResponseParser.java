@@ -0,0 +1,230 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpEntity;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+
+/**
+ * This class is used by DataLoader to parse response from Elasticsearch "_bulk" API.
+ * 
+ * <p>Streaming JSON parser is used. If the response has "errors": false 
+ * (all documents were loaded), parsing stops right away without reading 
+ * the list of items. Otherwise, only failed items are collected.
+ *   
+ * @author karpenko
+ */
+public class BulkResponseParser
+{
+    /**
+     * Inner class to store information about one failed item (document).
+     * @author karpenko
+     */
+    public static class ItemError
+    {
+        /**
+         * Item position in the bulk request (0 = first document)
+         */
+        public int position;
+        
+        /**
+         * Document ID
+         */
+        public String id;
+        
+        /**
+         * HTTP status, e.g., 400 or 429
+         */
+        public int status;
+        
+        /**
+         * Error type, e.g., "mapper_parsing_exception"
+         */
+        public String type;
+        
+        /**
+         * Error message
+         */
+        public String reason;
+    }
+    
+    
+    private JsonReader rd;
+    private List<ItemError> errors;
+    private int position;
+
+
+    /**
+     * Constructor
+     */
+    public BulkResponseParser()
+    {
+    }
+    
+    
+    /**
+     * Parse HTTP body of a "_bulk" response (JSON)
+     * @param entity HTTP response
+     * @return a list of failed items. The list is empty if all items were loaded.
+     * @throws IOException an exception
+     */
+    public List<ItemError> parse(HttpEntity entity) throws IOException
+    {
+        errors = new ArrayList<>();
+        position = 0;
+        
+        InputStream is = entity.getContent();
+        rd = new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        
+        try
+        {
+            rd.beginObject();
+            
+            while(rd.hasNext() && rd.peek() != JsonToken.END_OBJECT)
+            {
+                String name = rd.nextName();
+                if("errors".equals(name))
+                {
+                    // No errors. Don't parse the rest of the response.
+                    if(!rd.nextBoolean()) return errors;
+                }
+                else if("items".equals(name))
+                {
+                    parseItems();
+                }
+                else
+                {
+                    rd.skipValue();
+                }
+            }
+            
+            rd.endObject();
+        }
+        finally
+        {
+            rd.close();
+        }
+        
+        return errors;
+    }
+    
+    
+    /**
+     * Parse "items" array
+     * @throws IOException an exception
+     */
+    private void parseItems() throws IOException
+    {
+        rd.beginArray();
+        
+        while(rd.hasNext() && rd.peek() != JsonToken.END_ARRAY)
+        {
+            // One item per document: { "index|create|update|delete": { ... } }
+            rd.beginObject();
+            while(rd.hasNext() && rd.peek() != JsonToken.END_OBJECT)
+            {
+                rd.nextName();
+                parseItem();
+            }
+            rd.endObject();
+            
+            position++;
+        }
+        
+        rd.endArray();
+    }
+    
+    
+    /**
+     * Parse item (action result) sub-tree
+     * @throws IOException an exception
+     */
+    private void parseItem() throws IOException
+    {
+        String id = null;
+        int status = 0;
+        ItemError err = null;
+        
+        rd.beginObject();
+        
+        while(rd.hasNext() && rd.peek() != JsonToken.END_OBJECT)
+        {
+            String name = rd.nextName();
+            if("_id".equals(name))
+            {
+                id = rd.nextString();
+            }
+            else if("status".equals(name))
+            {
+                status = rd.nextInt();
+            }
+            else if("error".equals(name))
+            {
+                err = parseError();
+            }
+            else
+            {
+                rd.skipValue();
+            }
+        }
+        
+        rd.endObject();
+        
+        if(err != null)
+        {
+            err.position = position;
+            err.id = id;
+            err.status = status;
+            errors.add(err);
+        }
+    }
+
+    
+    /**
+     * Parse item "error" sub-tree and extract "type" and "reason" values.
+     * @return item error
+     * @throws IOException an exception
+     */
+    private ItemError parseError() throws IOException
+    {
+        ItemError err = new ItemError();
+        
+        // Error could be a string in some cases
+        if(rd.peek() == JsonToken.STRING)
+        {
+            err.reason = rd.nextString();
+            return err;
+        }
+        
+        rd.beginObject();
+        
+        while(rd.hasNext() && rd.peek() != JsonToken.END_OBJECT)
+        {
+            String name = rd.nextName();
+            if("type".equals(name))
+            {
+                err.type = rd.nextString();
+            }
+            else if("reason".equals(name))
+            {
+                err.reason = rd.nextString();
+            }
+            else
+            {
+                rd.skipValue();
+            }
+        }
+        
+        rd.endObject();
+        
+        return err;
+    }
+}
@@ -26,8 +26,35 @@ public class DDDataExporter extends DataExporter
     protected String createRequest(int batchSize, String searchAfter) throws Exception
     {
         RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
-        String json = reqBld.createExportAllDataRequest("es_field_name", batchSize, searchAfter);
+        String json = reqBld.createExportAllDataRequest("es_field_name", batchSize, searchAfter, 
+                getIncludes(), getExcludes());
         return json;
     }
 
+    
+    /**
+     * Creates Elasticsearch point-in-time JSON query.
+     * Not sliced export is sorted by field name. Slices are sorted by "_shard_doc" only.
+     */
+    @Override
+    protected String createPitRequest(int batchSize, String pitId, String keepAlive,
+            String searchAfter, int sliceId, int maxSlices) throws Exception
+    {
+        RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
+        String sortField = (maxSlices > 1) ? null : "es_field_name";
+        
+        return reqBld.createPitExportDataRequest(null, null, sortField, 
+                batchSize, pitId, keepAlive, searchAfter, sliceId, maxSlices, getIncludes(), getExcludes());
+    }
+
+    
+    /**
+     * Creates Elasticsearch JSON query to start a sliced scroll.
+     */
+    @Override
+    protected String createSliceRequest(int batchSize, int sliceId, int maxSlices) throws Exception
+    {
+        RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
+        return reqBld.createSlicedScrollRequest(null, null, batchSize, sliceId, maxSlices, getIncludes(), getExcludes());
+    }
 }
@@ -1,43 +1,80 @@
 package gov.nasa.pds.registry.mgr.dao;
 
 import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
 
+import com.google.gson.Gson;
+
 import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
-import gov.nasa.pds.registry.common.es.client.SearchResponseParser;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
 import gov.nasa.pds.registry.mgr.util.es.EsDocWriter;
 
 
 /**
- * Base abstract class to export data from Elasticsearch. Data is processed in batches. 
- * Elasticsearch "search_after" parameter is used to paginate search results.
- * 
+ * Base abstract class to export data from Elasticsearch. Data is processed in batches.
+ *
+ * <p>Export is a consistent snapshot of the index. A point-in-time (PIT) is opened
+ * before the export and all pages are requested from that PIT. Pages are sorted
+ * with "_shard_doc" tie-breaker and paginated by "search_after" parameter,
+ * so deep pages are as cheap as the first one.
+ * If Elasticsearch doesn't support PIT (versions before 7.10),
+ * plain "search_after" pagination (or scroll for sliced export) is used.
+ *
+ * <p>If the number of slices is greater than 1, data is exported in parallel.
+ * Each slice is fetched by its own worker thread and written to its own
+ * part file, e.g., "docs-0.json", "docs-1.json".
+ *
+ * <p>Output files can be gzip-compressed ("docs.json.gz") and split into
+ * parts of limited size ("docs-001.json", "docs-002.json").
+ * Files are split only between documents. DataLoader can load all of these files.
+ *
  * @author karpenko
  *
  */
 public abstract class DataExporter
 {
-    private static final int BATCH_SIZE = 100;
+    private static final int DEFAULT_PAGE_SIZE = 100;
     private static final int PRINT_STATUS_SIZE = 5000;
-    
+    private static final String KEEP_ALIVE = "5m";
+
     private String esUrl;
     private String indexName;
     private String authConfigFile;
-    
-   
+    private int numSlices = 1;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private List<String> includes;
+    private List<String> excludes;
+    private boolean gzip;
+    private long maxFileSize;
+
+
     /**
      * Constructor
      * @param esUrl Elasticsearch URL, e.g., "http://localhost:9200"
      * @param indexName Elasticsearch index name
-     * @param authConfigFile Elasticsearch authentication configuration file 
-     * (see Registry Manager documentation for more info) 
+     * @param authConfigFile Elasticsearch authentication configuration file
+     * (see Registry Manager documentation for more info)
      */
     public DataExporter(String esUrl, String indexName, String authConfigFile)
     {
@@ -45,18 +82,144 @@ public abstract class DataExporter
         this.indexName = indexName;
         this.authConfigFile = authConfigFile;
     }
-    
-    
+
+
     /**
      * Create JSON query to pass to "/indexName/_search" Elasticsearch API.
+     * Used if Elasticsearch doesn't support point-in-time API.
      * @param batchSize batch size
      * @param searchAfter Elasticsearch "search_after" parameter to paginate search results.
-     * @return JSON 
+     * @return JSON
      * @throws Exception an exception
      */
     protected abstract String createRequest(int batchSize, String searchAfter) throws Exception;
-    
-    
+
+
+    /**
+     * Create JSON query to pass to "/_search" Elasticsearch API with point-in-time.
+     * @param batchSize batch size
+     * @param pitId point-in-time ID
+     * @param keepAlive point-in-time keep alive, e.g., "5m"
+     * @param searchAfter sort values of the last document of the previous page (raw JSON array) or null
+     * @param sliceId slice ID (0 to maxSlices - 1)
+     * @param maxSlices total number of slices. 1 means no slicing.
+     * @return JSON
+     * @throws Exception an exception
+     */
+    protected abstract String createPitRequest(int batchSize, String pitId, String keepAlive,
+            String searchAfter, int sliceId, int maxSlices) throws Exception;
+
+
+    /**
+     * Create JSON query to start a sliced scroll.
+     * Used if Elasticsearch doesn't support point-in-time API.
+     * @param batchSize batch size
+     * @param sliceId slice ID (0 to maxSlices - 1)
+     * @param maxSlices total number of slices
+     * @return JSON
+     * @throws Exception an exception
+     */
+    protected abstract String createSliceRequest(int batchSize, int sliceId, int maxSlices) throws Exception;
+
+
+    /**
+     * Set number of slices to export in parallel.
+     * If greater than 1, each slice is written to a separate part file.
+     * @param numSlices number of slices. Default is 1 (no slicing).
+     */
+    public void setNumSlices(int numSlices)
+    {
+        if(numSlices <= 0) throw new IllegalArgumentException("Number of slices should be > 0");
+        this.numSlices = numSlices;
+    }
+
+
+    /**
+     * Set page size (number of documents returned by one search request).
+     * @param pageSize page size. Default is 100.
+     */
+    public void setPageSize(int pageSize)
+    {
+        if(pageSize <= 0) throw new IllegalArgumentException("Page size should be > 0");
+        this.pageSize = pageSize;
+    }
+
+
+    /**
+     * Select document fields ("_source" fields) to export.
+     * Wildcards are supported, e.g., "ops:Label_File_Info/*".
+     * @param includes fields to export. If null or empty, all fields are exported.
+     * @param excludes fields to exclude, e.g., BLOBs. Can be null.
+     */
+    public void setSourceFields(List<String> includes, List<String> excludes)
+    {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+
+    /**
+     * Enable or disable gzip compression of output files.
+     * ".gz" extension is added to the names of compressed files.
+     * @param gzip true to compress output files
+     */
+    public void setCompression(boolean gzip)
+    {
+        this.gzip = gzip;
+    }
+
+
+    /**
+     * Set maximum size of an output file. If the size is exceeded,
+     * the next document is written to a new part file, e.g., "docs-002.json".
+     * @param maxFileSize maximum file size in bytes. Default is 0 (don't split output files).
+     */
+    public void setMaxFileSize(long maxFileSize)
+    {
+        if(maxFileSize < 0) throw new IllegalArgumentException("Maximum file size should be >= 0");
+        this.maxFileSize = maxFileSize;
+    }
+
+
+    /**
+     * Get "_source" fields to export.
+     * @return field list or null if all fields should be exported
+     */
+    protected List<String> getIncludes()
+    {
+        return includes;
+    }
+
+
+    /**
+     * Get "_source" fields to exclude.
+     * @return field list or null
+     */
+    protected List<String> getExcludes()
+    {
+        return excludes;
+    }
+
+
+    /**
+     * Get part file of a slice, e.g., "docs.json" -&gt; "docs-1.json".
+     * @param file output file
+     * @param sliceId slice ID
+     * @return part file
+     */
+    public static File getPartFile(File file, int sliceId)
+    {
+        String name = file.getName();
+        int idx = name.lastIndexOf('.');
+
+        String partName = (idx > 0) ?
+                name.substring(0, idx) + "-" + sliceId + name.substring(idx) :
+                name + "-" + sliceId;
+
+        return new File(file.getAbsoluteFile().getParentFile(), partName);
+    }
+
+
     /**
      * Export data from Elasticsearch into a file
      * @param file a file
@@ -64,47 +227,36 @@ public abstract class DataExporter
      */
     public void export(File file) throws Exception
     {
-        EsDocWriter writer = null; 
         RestClient client = null;
-        
+        // Elasticsearch could return updated point-in-time IDs. Close all of them.
+        Set<String> pitIds = new LinkedHashSet<>();
+        AtomicInteger numDocs = new AtomicInteger();
+
         try
         {
-            writer = new EsDocWriter(file);
             client = EsClientFactory.createRestClient(esUrl, authConfigFile);
-            SearchResponseParser parser = new SearchResponseParser();
-            
-            String searchAfter = null;
-            int numDocs = 0;
-            
-            do
+            String pitId = openPit(client);
+            if(pitId != null) pitIds.add(pitId);
+
+            if(numSlices > 1)
             {
-                Request req = new Request("GET", "/" + indexName + "/_search");
-                // Call abstract method to get JSON query
-                String json = createRequest(BATCH_SIZE, searchAfter);
-                req.setJsonEntity(json);
-                
-                Response resp = client.performRequest(req);
-                parser.parseResponse(resp, writer);
-                
-                numDocs += parser.getNumDocs();
-                searchAfter = parser.getLastId();
-                
-                if(numDocs % PRINT_STATUS_SIZE == 0)
-                {
-                    Logger.info("Exported " + numDocs + " document(s)");
-                }
+                exportSliced(client, pitId, file, numDocs, pitIds);
+            }
+            else
+            {
+                String lastPitId = exportPages(client, pitId, 0, 1, file, numDocs);
+                if(lastPitId != null) pitIds.add(lastPitId);
             }
-            while(parser.getNumDocs() == BATCH_SIZE);
 
-            if(numDocs == 0)
+            if(numDocs.get() == 0)
             {
                 Logger.info("No documents found");
             }
             else
             {
-                Logger.info("Exported " + numDocs + " document(s)");
+                Logger.info("Exported " + numDocs.get() + " document(s)");
             }
-            
+
             Logger.info("Done");
         }
         catch(ResponseException ex)
@@ -113,9 +265,310 @@ public abstract class DataExporter
         }
         finally
         {
+            closePit(client, pitIds);
             CloseUtils.close(client);
+        }
+    }
+
+
+    /**
+     * Open point-in-time.
+     * @param client Elasticsearch client
+     * @return point-in-time ID or null if Elasticsearch doesn't support point-in-time API.
+     * @throws Exception an exception
+     */
+    private String openPit(RestClient client) throws Exception
+    {
+        Request req = new Request("POST", "/" + indexName + "/_pit");
+        req.addParameter("keep_alive", KEEP_ALIVE);
+
+        Response resp;
+        try
+        {
+            resp = client.performRequest(req);
+        }
+        catch(ResponseException ex)
+        {
+            int status = ex.getResponse().getStatusLine().getStatusCode();
+            if(status == 400 || status == 404 || status == 405)
+            {
+                Logger.warn("Elasticsearch doesn't support point-in-time API. "
+                        + "Exported data could be inconsistent if the index is updated during export.");
+                return null;
+            }
+
+            throw ex;
+        }
+
+        Reader rd = new InputStreamReader(resp.getEntity().getContent(), StandardCharsets.UTF_8);
+        try
+        {
+            Map<?, ?> json = new Gson().fromJson(rd, Map.class);
+            Object id = (json == null) ? null : json.get("id");
+            if(id == null) throw new Exception("Could not open point-in-time. Missing 'id' in the response.");
+
+            return id.toString();
+        }
+        finally
+        {
+            CloseUtils.close(rd);
+        }
+    }
+
+
+    /**
+     * Close point-in-time.
+     * @param client Elasticsearch client
+     * @param pitIds point-in-time IDs: the opened one and all IDs returned by searches.
+     */
+    private static void closePit(RestClient client, Collection<String> pitIds)
+    {
+        if(client == null) return;
+
+        RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
+        for(String pitId: pitIds)
+        {
+            try
+            {
+                Request req = new Request("DELETE", "/_pit");
+                req.setJsonEntity(reqBld.createClosePitRequest(pitId));
+                client.performRequest(req);
+            }
+            catch(Exception ex)
+            {
+                Logger.warn("Could not close point-in-time: " + ex.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Export data in parallel. Each slice is written to its own part file.
+     * @param client Elasticsearch client
+     * @param pitId point-in-time ID or null. If null, sliced scroll is used.
+     * @param file output file. Used to generate part file names.
+     * @param numDocs total number of exported documents (all slices)
+     * @param pitIds the last point-in-time ID of each slice is added to this set
+     * @throws Exception an exception
+     */
+    private void exportSliced(RestClient client, String pitId, File file, AtomicInteger numDocs, 
+            Set<String> pitIds) throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(numSlices);
+        Set<String> slicePitIds = ConcurrentHashMap.newKeySet();
+
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for(int i = 0; i < numSlices; i++)
+            {
+                final int sliceId = i;
+                final File partFile = getPartFile(file, sliceId);
+
+                futures.add(pool.submit(() ->
+                {
+                    Logger.info("Exporting slice " + sliceId + " into " + partFile.getAbsolutePath());
+
+                    if(pitId != null)
+                    {
+                        String lastPitId = exportPages(client, pitId, sliceId, numSlices, partFile, numDocs);
+                        if(lastPitId != null) slicePitIds.add(lastPitId);
+                    }
+                    else
+                    {
+                        exportScroll(client, sliceId, partFile, numDocs);
+                    }
+
+                    return null;
+                }));
+            }
+
+            // Wait for all slices. Throw the first error.
+            for(Future<?> future: futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch(ExecutionException ex)
+                {
+                    pool.shutdownNow();
+                    Throwable cause = ex.getCause();
+                    throw (cause instanceof Exception) ? (Exception)cause : ex;
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+            pitIds.addAll(slicePitIds);
+        }
+    }
+
+
+    /**
+     * Export data (one slice) page by page using "search_after" pagination.
+     * @param client Elasticsearch client
+     * @param pitId point-in-time ID. If null, point-in-time is not used.
+     * @param sliceId slice ID
+     * @param maxSlices total number of slices. 1 means no slicing.
+     * @param file output file
+     * @param numDocs total number of exported documents (all slices)
+     * @return the last point-in-time ID returned by Elasticsearch or null if point-in-time is not used
+     * @throws Exception an exception
+     */
+    private String exportPages(RestClient client, String pitId, int sliceId, int maxSlices,
+            File file, AtomicInteger numDocs) throws Exception
+    {
+        ExportResponseParser parser = new ExportResponseParser();
+        EsDocWriter writer = null;
+        String searchAfter = null;
+
+        try
+        {
+            writer = new EsDocWriter(file, gzip, maxFileSize);
+
+            do
+            {
+                Request req;
+                if(pitId != null)
+                {
+                    // Index name is not allowed with point-in-time
+                    req = new Request("POST", "/_search");
+                    req.setJsonEntity(createPitRequest(pageSize, pitId, KEEP_ALIVE, searchAfter, sliceId, maxSlices));
+                }
+                else
+                {
+                    req = new Request("GET", "/" + indexName + "/_search");
+                    // Call abstract method to get JSON query
+                    req.setJsonEntity(createRequest(pageSize, searchAfter));
+                }
+
+                Response resp = client.performRequest(req);
+                parser.parse(resp.getEntity(), writer);
+
+                if(pitId != null)
+                {
+                    searchAfter = parser.getLastSort();
+                    // Elasticsearch could return updated point-in-time ID
+                    if(parser.getPitId() != null) pitId = parser.getPitId();
+                }
+                else
+                {
+                    searchAfter = parser.getLastId();
+                }
+
+                addProgress(numDocs, parser.getNumDocs());
+            }
+            while(parser.getNumDocs() == pageSize);
+
+            return pitId;
+        }
+        finally
+        {
             CloseUtils.close(writer);
+            logFiles(writer);
         }
+    }
 
+
+    /**
+     * Export one slice of a sliced scroll into a file.
+     * Used if Elasticsearch doesn't support point-in-time API.
+     * @param client Elasticsearch client
+     * @param sliceId slice ID
+     * @param file output file
+     * @param numDocs total number of exported documents (all slices)
+     * @throws Exception an exception
+     */
+    private void exportScroll(RestClient client, int sliceId, File file, AtomicInteger numDocs) throws Exception
+    {
+        RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
+        ExportResponseParser parser = new ExportResponseParser();
+        EsDocWriter writer = null;
+        String scrollId = null;
+
+        try
+        {
+            writer = new EsDocWriter(file, gzip, maxFileSize);
+
+            // First page
+            Request req = new Request("POST", "/" + indexName + "/_search");
+            req.addParameter("scroll", KEEP_ALIVE);
+            req.setJsonEntity(createSliceRequest(pageSize, sliceId, numSlices));
+
+            while(true)
+            {
+                Response resp = client.performRequest(req);
+                parser.parse(resp.getEntity(), writer);
+                scrollId = parser.getScrollId();
+
+                if(parser.getNumDocs() == 0) break;
+                addProgress(numDocs, parser.getNumDocs());
+
+                // Next page
+                req = new Request("POST", "/_search/scroll");
+                req.setJsonEntity(reqBld.createScrollRequest(scrollId, KEEP_ALIVE));
+            }
+        }
+        finally
+        {
+            CloseUtils.close(writer);
+            logFiles(writer);
+            clearScroll(client, scrollId);
+        }
+    }
+
+
+    /**
+     * Release scroll search context.
+     * @param client Elasticsearch client
+     * @param scrollId scroll ID
+     */
+    private static void clearScroll(RestClient client, String scrollId)
+    {
+        if(scrollId == null) return;
+
+        try
+        {
+            Request req = new Request("DELETE", "/_search/scroll");
+            req.setJsonEntity(new RegistryRequestBuilder().createClearScrollRequest(scrollId));
+            client.performRequest(req);
+        }
+        catch(Exception ex)
+        {
+            Logger.warn("Could not clear scroll: " + ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Print names of part files if the output was split.
+     * @param writer document writer. Can be null.
+     */
+    private static void logFiles(EsDocWriter writer)
+    {
+        if(writer == null || writer.getFiles().size() < 2) return;
+
+        for(File file: writer.getFiles())
+        {
+            Logger.info("Created " + file.getAbsolutePath());
+        }
+    }
+
+
+    /**
+     * Update and print progress.
+     * @param numDocs total number of exported documents (all slices)
+     * @param count number of documents in the last page
+     */
+    private static void addProgress(AtomicInteger numDocs, int count)
+    {
+        int total = numDocs.addAndGet(count);
+        if(total / PRINT_STATUS_SIZE != (total - count) / PRINT_STATUS_SIZE)
+        {
+            Logger.info("Exported " + total + " document(s)");
+        }
     }
 }
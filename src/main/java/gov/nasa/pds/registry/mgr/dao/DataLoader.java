@@ -1,25 +1,43 @@
 package gov.nasa.pds.registry.mgr.dao;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
-import com.google.gson.Gson;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
 
+import gov.nasa.pds.registry.common.es.client.EsClientFactory;
 import gov.nasa.pds.registry.common.es.client.EsUtils;
-import gov.nasa.pds.registry.common.es.client.HttpConnectionFactory;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
+import gov.nasa.pds.registry.mgr.util.es.NJsonEntity;
+import gov.nasa.pds.registry.mgr.util.file.ByteLineReader;
+import gov.nasa.pds.registry.mgr.util.file.LineReader;
+import gov.nasa.pds.registry.mgr.util.file.MappedLineReader;
+import gov.nasa.pds.registry.mgr.util.file.PartFileOutputStream;
 
 
 /**
@@ -28,15 +46,357 @@ import gov.nasa.pds.registry.mgr.util.Logger;
  * This is the standard file format used by Elasticsearch bulk load API.
  * Data are loaded in batches.
  * 
+ * <p>By default, batches are loaded one after another. If the number of threads 
+ * is greater than 1, a pipelined mode is used: the calling thread reads batches 
+ * into a bounded queue and a pool of worker threads keeps several "_bulk" 
+ * requests in flight at once. Loading stops on the first error.
+ * 
+ * <p>A batch is limited both by the number of records and by the size of
+ * the request payload in bytes. Optionally, the number of records per batch 
+ * can be adjusted automatically based on "_bulk" request latency and 
+ * Elasticsearch rejections (see {@link BatchSizeController}).
+ * 
+ * <p>If some documents in a batch fail, only failed documents are resubmitted.
+ * Temporary failures, such as rejections (HTTP 429) are retried with 
+ * exponential backoff. Permanent failures, such as mapping errors, stop loading. 
+ * If a dead-letter file is set, permanently failed records are written to that 
+ * file instead and loading continues.
+ * 
+ * <p>If checkpoints are enabled, the byte offset of the first record which 
+ * was not acknowledged by Elasticsearch yet is saved in a sidecar file 
+ * after each successful "_bulk" request (see {@link LoadCheckpoint}). 
+ * An interrupted load can be resumed from that offset. If a checkpoint could
+ * not be saved, a warning is logged and loading continues without checkpoints.
+ * 
+ * <p>Records produced in memory (e.g., parsed data dictionary records) can be
+ * loaded without writing a temporary file by a {@link BulkWriter}
+ * (see {@link #openBulkWriter()}).
+ * 
+ * <p>Batches are posted by Elasticsearch REST client, which keeps a pool of 
+ * persistent (keep-alive) connections. The client can be shared with other 
+ * classes. If a client is not passed to the constructor, a new client is 
+ * created for each loaded file.
+ * 
  * @author karpenko
  */
 public class DataLoader
 {
+    /**
+     * A batch of NJSON records. There are 2 lines per record.
+     * Lines are stored as UTF-8 bytes without new-line characters. 
+     * Buffers are either heap buffers or slices of a memory-mapped file.
+     */
+    private static class Batch
+    {
+        public List<ByteBuffer> lines;
+        public int numRecords;
+        public long numBytes;
+        
+        // Batch sequence number
+        public long seq;
+        // Byte offset in the data file after the last record of this batch
+        public long endOffset;
+        // Number of records in the data file up to and including this batch
+        public long endRecord;
+        
+        public Batch(int batchSize)
+        {
+            lines = new ArrayList<>(batchSize * 2);
+        }
+    }
+    
+    
+    /**
+     * Reads batches of NJSON records. A batch is closed when it reaches 
+     * maximum number of records or when the next record does not fit 
+     * into the maximum size in bytes. The record which does not fit is 
+     * moved to the next batch. A batch always has at least one record.
+     */
+    private static class BatchReader
+    {
+        private LineReader rd;
+        private ByteBuffer pendingLine1;
+        private ByteBuffer pendingLine2;
+        private long pendingEndOffset;
+        
+        private long seq;
+        private long numRecords;
+        
+        public BatchReader(LineReader rd, long startRecord)
+        {
+            this.rd = rd;
+            this.numRecords = startRecord;
+        }
+        
+        public Batch next(int maxRecords, long maxBytes) throws Exception
+        {
+            Batch batch = new Batch(maxRecords);
+            
+            while(batch.numRecords < maxRecords)
+            {
+                if(pendingLine1 == null && !readRecord()) break;
+                
+                // Payload size including 2 new-line characters
+                long recSize = pendingLine1.remaining() + pendingLine2.remaining() + 2;
+                if(batch.numRecords > 0 && batch.numBytes + recSize > maxBytes) break;
+                
+                batch.lines.add(pendingLine1);
+                batch.lines.add(pendingLine2);
+                batch.numRecords++;
+                batch.numBytes += recSize;
+                batch.endOffset = pendingEndOffset;
+                
+                pendingLine1 = null;
+                pendingLine2 = null;
+            }
+            
+            if(batch.numRecords == 0) return null;
+            
+            numRecords += batch.numRecords;
+            batch.endRecord = numRecords;
+            batch.seq = seq++;
+            
+            return batch;
+        }
+        
+        private boolean readRecord() throws Exception
+        {
+            ByteBuffer line1 = rd.readLine();
+            if(line1 == null || !line1.hasRemaining()) return false;
+            
+            ByteBuffer line2 = rd.readLine();
+            if(line2 == null) throw new Exception("Premature end of file");
+            
+            pendingLine1 = line1;
+            pendingLine2 = line2;
+            pendingEndOffset = rd.getOffset();
+            
+            return true;
+        }
+    }
+    
+    
+    /**
+     * Saves load checkpoints. Batches can be acknowledged out of order
+     * in pipelined mode. The checkpoint only moves forward when all 
+     * previous batches are acknowledged.
+     */
+    private static class CheckpointTracker
+    {
+        private LoadCheckpoint checkpoint;
+        private boolean failed;
+        private long nextSeq;
+        // Key: batch sequence number. Value: {end offset, end record}
+        private TreeMap<Long, long[]> acked = new TreeMap<>();
+        
+        public CheckpointTracker(LoadCheckpoint checkpoint)
+        {
+            this.checkpoint = checkpoint;
+        }
+        
+        public synchronized void onBatchLoaded(Batch batch)
+        {
+            if(failed) return;
+            
+            acked.put(batch.seq, new long[] { batch.endOffset, batch.endRecord });
+            
+            long[] last = null;
+            while(!acked.isEmpty() && acked.firstKey() == nextSeq)
+            {
+                last = acked.remove(nextSeq);
+                nextSeq++;
+            }
+            
+            if(last != null)
+            {
+                checkpoint.offset = last[0];
+                checkpoint.numRecords = last[1];
+                
+                try
+                {
+                    checkpoint.write();
+                }
+                catch(Exception ex)
+                {
+                    // Checkpoints are optional. Don't fail the load.
+                    failed = true;
+                    Logger.warn("Could not save checkpoint of " + checkpoint.dataFile.getAbsolutePath() 
+                            + ": " + ex.getMessage() + ". Loading will continue without checkpoints.");
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Elasticsearch rejected "_bulk" request (HTTP 429 - Too Many Requests).
+     */
+    @SuppressWarnings("serial")
+    private static class RejectedException extends Exception
+    {
+        public RejectedException(String msg)
+        {
+            super(msg);
+        }
+    }
+    
+    /**
+     * State of one load call shared by all worker threads.
+     */
+    private static class LoadContext
+    {
+        public RestClient client;
+        public CheckpointTracker checkpoint;
+        public AtomicInteger numLoaded = new AtomicInteger();
+        public AtomicInteger numFailed = new AtomicInteger();
+        // Request body size before and after compression
+        public AtomicLong rawBytes = new AtomicLong();
+        public AtomicLong compressedBytes = new AtomicLong();
+    }
+    
+    /**
+     * Loads NJSON records pushed by the caller. Records are grouped into batches
+     * the same way as records read from a file. Batches are posted by worker 
+     * threads, so the caller can produce the next records while previous 
+     * batches are being loaded. At least one worker thread is always used.
+     * Several producer threads can write records into the same bulk writer.
+     * 
+     * <p>Call {@link #finish()} after writing all records to load the last 
+     * batch and wait for all "_bulk" requests to complete. Always call 
+     * {@link #close()} to release resources.
+     */
+    public class BulkWriter implements Closeable
+    {
+        private LoadContext ctx = new LoadContext();
+        private BlockingQueue<Batch> queue;
+        private AtomicReference<Exception> error = new AtomicReference<>();
+        private ExecutorService pool;
+        private int numWorkers;
+        
+        private Batch batch;
+        private int maxRecords;
+        
+        
+        private BulkWriter() throws Exception
+        {
+            ctx.client = (sharedClient == null) ? EsClientFactory.createRestClient(esUrl, authConfigFile) : sharedClient;
+            
+            numWorkers = Math.max(1, numThreads);
+            queue = new ArrayBlockingQueue<>(numWorkers * 2);
+            pool = Executors.newFixedThreadPool(numWorkers);
+            for(int i = 0; i < numWorkers; i++)
+            {
+                pool.execute(() -> runWorker(ctx, queue, error));
+            }
+        }
+        
+        
+        /**
+         * Write one NJSON record.
+         * @param pkLine first line (primary key), e.g., {"index":{"_id":"..."}}
+         * @param dataLine second line (data record). Should be a single line of JSON.
+         * @throws Exception an exception. Also thrown if loading of previous batches failed.
+         */
+        public void write(String pkLine, String dataLine) throws Exception
+        {
+            write(ByteBuffer.wrap(pkLine.getBytes(StandardCharsets.UTF_8)), 
+                    ByteBuffer.wrap(dataLine.getBytes(StandardCharsets.UTF_8)));
+        }
+        
+        
+        /**
+         * Write one NJSON record.
+         * @param pkLine first line (primary key) as UTF-8 bytes without new-line character
+         * @param dataLine second line (data record) as UTF-8 bytes without new-line character
+         * @throws Exception an exception. Also thrown if loading of previous batches failed.
+         */
+        public synchronized void write(ByteBuffer pkLine, ByteBuffer dataLine) throws Exception
+        {
+            if(error.get() != null) throw error.get();
+            
+            // Payload size including 2 new-line characters
+            long recSize = pkLine.remaining() + dataLine.remaining() + 2;
+            if(batch != null && (batch.numRecords >= maxRecords || batch.numBytes + recSize > maxBatchBytes))
+            {
+                putBatch(queue, batch, error);
+                batch = null;
+            }
+            
+            if(batch == null)
+            {
+                maxRecords = getBatchSize();
+                batch = new Batch(maxRecords);
+            }
+            
+            batch.lines.add(pkLine);
+            batch.lines.add(dataLine);
+            batch.numRecords++;
+            batch.numBytes += recSize;
+        }
+        
+        
+        /**
+         * Load the last batch and wait for all "_bulk" requests to complete.
+         * @throws Exception the first loading error
+         */
+        public synchronized void finish() throws Exception
+        {
+            if(batch != null)
+            {
+                putBatch(queue, batch, error);
+                batch = null;
+            }
+            
+            stopWorkers(pool, queue, error, numWorkers);
+            if(error.get() != null) throw error.get();
+            
+            logResult(ctx);
+        }
+        
+        
+        /**
+         * Release resources. Cancels loading if {@link #finish()} was not called.
+         */
+        @Override
+        public void close()
+        {
+            pool.shutdownNow();
+            // Dead-letter file is reopened on the next write if other loads are still running.
+            CloseUtils.close(deadLetter);
+            if(ctx.client != sharedClient) CloseUtils.close(ctx.client);
+        }
+    }
+    
+    
+    // Marks the end of data in the pipelined mode
+    private static final Batch END_OF_DATA = new Batch(0);
+    
+    // Retry requests and documents rejected by Elasticsearch (HTTP 429 - Too Many Requests)
+    private static final int MAX_RETRIES = 5;
+    private static final long RETRY_DELAY = 1000;
+    
+    // Adaptive batch size limits
+    private static final int MAX_ADAPTIVE_BATCH_SIZE = 5000;
+    private static final long DEFAULT_TARGET_LATENCY = 2000;
+    
     private int printProgressSize = 5000;
     
     private int batchSize = 100;
-    private HttpConnectionFactory conFactory; 
-    private int totalRecords;
+    private long maxBatchBytes = 10 * 1024 * 1024;
+    private BatchSizeController batchSizeController;
+    private int numThreads = 1;
+    private String esUrl;
+    private String indexName;
+    private String authConfigFile;
+    private RestClient sharedClient;
+    private DeadLetterWriter deadLetter;
+    private LoadProgress progress;
+    private boolean checkpointEnabled;
+    private boolean resume;
+    private boolean memoryMapped;
+    private int compressionLevel;
+    
+    private AtomicInteger totalRecords = new AtomicInteger();
 
 
     /**
@@ -49,8 +409,23 @@ public class DataLoader
      */
     public DataLoader(String esUrl, String indexName, String authConfigFile) throws Exception
     {
-        conFactory = new HttpConnectionFactory(esUrl, indexName, "_bulk");
-        conFactory.initAuth(authConfigFile);
+        this.esUrl = esUrl;
+        this.indexName = indexName;
+        this.authConfigFile = authConfigFile;
+    }
+
+    
+    /**
+     * Constructor
+     * @param client Elasticsearch client. The client is not closed by this class.
+     * @param indexName Elasticsearch index name
+     */
+    public DataLoader(RestClient client, String indexName)
+    {
+        if(client == null) throw new IllegalArgumentException("Elasticsearch client is null");
+        
+        this.sharedClient = client;
+        this.indexName = indexName;
     }
     
     
@@ -65,8 +440,156 @@ public class DataLoader
     }
 
     
+    /**
+     * Set maximum size of a batch (a "_bulk" request payload) in bytes.
+     * Default value is 10 MB. A record bigger than this value is loaded in 
+     * a separate batch.
+     * @param size maximum batch size in bytes
+     */
+    public void setMaxBatchBytes(long size)
+    {
+        if(size <= 0) throw new IllegalArgumentException("Batch size in bytes should be > 0");
+        this.maxBatchBytes = size;
+    }
+
+    
+    /**
+     * Enable or disable adaptive batch size. If enabled, the number of records
+     * per batch starts with the value set by {@link #setBatchSize(int)} and is adjusted
+     * after each "_bulk" request to keep request latency close to the target latency.
+     * Maximum batch size in bytes is always respected.
+     * @param enable enable adaptive batch size
+     */
+    public void setAdaptiveBatchSize(boolean enable)
+    {
+        setAdaptiveBatchSize(enable, DEFAULT_TARGET_LATENCY);
+    }
+    
+    
+    /**
+     * Enable or disable adaptive batch size.
+     * @param enable enable adaptive batch size
+     * @param targetLatency target "_bulk" request latency in milliseconds
+     */
+    public void setAdaptiveBatchSize(boolean enable, long targetLatency)
+    {
+        batchSizeController = enable ? 
+                new BatchSizeController(batchSize, 1, MAX_ADAPTIVE_BATCH_SIZE, targetLatency) : null;
+    }
+
+    
+    /**
+     * Set number of threads (number of concurrent "_bulk" requests).
+     * Default value is 1. If the value is greater than 1, data are loaded in pipelined mode.
+     * @param num number of threads
+     */
+    public void setNumThreads(int num)
+    {
+        if(num <= 0) throw new IllegalArgumentException("Number of threads should be > 0");
+        this.numThreads = num;
+    }
+    
+    
+    /**
+     * Set dead-letter file. Records which could not be loaded because of 
+     * permanent errors (e.g., mapping errors) or which are still failing after 
+     * all retries are appended to this file. Loading continues.
+     * If a dead-letter file is not set (default), loading stops on such errors.
+     * @param file dead-letter file or null.
+     */
+    public void setDeadLetterFile(File file)
+    {
+        this.deadLetter = (file == null) ? null : new DeadLetterWriter(file);
+    }
+    
+    
+    /**
+     * Set aggregate progress shared by several data loaders. 
+     * If set, progress is reported across all concurrent loads instead of per load call.
+     * @param progress aggregate progress or null
+     */
+    public void setProgress(LoadProgress progress)
+    {
+        this.progress = progress;
+    }
+    
+    
+    /**
+     * Enable or disable load checkpoints. If enabled, a sidecar file with 
+     * the byte offset of the first not yet loaded record is updated after 
+     * each successful "_bulk" request. Only applies to {@link #loadFile(File)}.
+     * @param enable enable checkpoints
+     */
+    public void setCheckpointEnabled(boolean enable)
+    {
+        this.checkpointEnabled = enable;
+    }
+
+    
+    /**
+     * Resume interrupted loads. If a data file has a valid checkpoint, 
+     * already loaded records are skipped by seeking directly to the checkpoint offset.
+     * Only applies to {@link #loadFile(File)}.
+     * @param resume resume from checkpoints
+     */
+    public void setResume(boolean resume)
+    {
+        this.resume = resume;
+    }
+    
+    
+    /**
+     * Read data files using memory mapping. Record boundaries are found 
+     * by scanning mapped bytes and lines are posted to Elasticsearch directly 
+     * from the mapped region without copying.
+     * Only applies to {@link #loadFile(File)}. Gzip-compressed files are never mapped.
+     * @param enable enable memory mapping
+     */
+    public void setMemoryMapped(boolean enable)
+    {
+        this.memoryMapped = enable;
+    }
+    
+    
+    /**
+     * Compress "_bulk" request bodies (Content-Encoding: gzip).
+     * Data is compressed on the fly while it is being sent.
+     * @param level compression level (1 - fastest, 9 - best compression). 
+     * 0 (default) disables compression.
+     */
+    public void setCompressionLevel(int level)
+    {
+        if(level < 0 || level > 9) throw new IllegalArgumentException("Invalid compression level " + level);
+        this.compressionLevel = level;
+    }
+    
+    
+    /**
+     * Open a writer to load records produced in memory without a temporary file.
+     * Batch size, number of threads, compression and dead-letter file settings 
+     * of this loader are used. Checkpoints are not supported.
+     * @return bulk writer
+     * @throws Exception an exception
+     */
+    public BulkWriter openBulkWriter() throws Exception
+    {
+        return new BulkWriter();
+    }
+    
+    
+    /**
+     * Get number of records loaded by the last completed call to one of the load methods.
+     * @return number of records
+     */
+    public int getTotalRecords()
+    {
+        return totalRecords.get();
+    }
+
+    
     /**
      * Load data from an NJSON (new-line-delimited JSON) file into Elasticsearch.
+     * Files with ".gz" extension are decompressed on the fly.
      * @param file NJSON (new-line-delimited JSON) file to load
      * @throws Exception an exception
      */
@@ -74,8 +597,94 @@ public class DataLoader
     {
         Logger.info("Loading ES data file: " + file.getAbsolutePath());
         
-        BufferedReader rd = new BufferedReader(new FileReader(file));
-        loadData(rd);
+        LoadCheckpoint cp = resume ? LoadCheckpoint.read(file) : null;
+        if(cp == null)
+        {
+            cp = new LoadCheckpoint(file);
+        }
+        else if(cp.offset == cp.fileSize && !PartFileOutputStream.isGzipFile(file))
+        {
+            Logger.info("File was already loaded. Skipping.");
+            totalRecords.set(0);
+            return;
+        }
+        else
+        {
+            Logger.info("Resuming after record " + cp.numRecords + " (byte offset " + cp.offset + ")");
+        }
+        
+        LineReader rd = openFile(file, cp.offset);
+        CheckpointTracker tracker = checkpointEnabled ? new CheckpointTracker(cp) : null;
+        loadData(rd, cp.numRecords, tracker);
+    }
+    
+    
+    /**
+     * Open NJSON data file for reading.
+     * @param file NJSON data file
+     * @param offset byte offset of the first record to read
+     * @return line reader
+     * @throws Exception an exception
+     */
+    private LineReader openFile(File file, long offset) throws Exception
+    {
+        if(PartFileOutputStream.isGzipFile(file))
+        {
+            return openGzipFile(file, offset);
+        }
+        
+        if(memoryMapped)
+        {
+            return new MappedLineReader(file, offset);
+        }
+        
+        FileInputStream is = new FileInputStream(file);
+        
+        try
+        {
+            is.getChannel().position(offset);
+            return new ByteLineReader(is, offset);
+        }
+        catch(Exception ex)
+        {
+            CloseUtils.close(is);
+            throw ex;
+        }
+    }
+    
+    
+    /**
+     * Open gzip-compressed NJSON data file for reading.
+     * Compressed data can't be seeked, so it is decompressed and skipped up to the offset.
+     * @param file gzip-compressed NJSON data file
+     * @param offset offset of the first record to read in uncompressed data
+     * @return line reader
+     * @throws Exception an exception
+     */
+    private static LineReader openGzipFile(File file, long offset) throws Exception
+    {
+        FileInputStream fis = new FileInputStream(file);
+        
+        try
+        {
+            GZIPInputStream is = new GZIPInputStream(fis, 64 * 1024);
+            
+            long remaining = offset;
+            while(remaining > 0)
+            {
+                long n = is.skip(remaining);
+                if(n <= 0) throw new Exception("Invalid checkpoint offset " + offset 
+                        + ". Unexpected end of file " + file.getAbsolutePath());
+                remaining -= n;
+            }
+            
+            return new ByteLineReader(is, offset);
+        }
+        catch(Exception ex)
+        {
+            CloseUtils.close(fis);
+            throw ex;
+        }
     }
     
     
@@ -99,8 +708,8 @@ public class DataLoader
                 throw new Exception("Could not find " + fileName +  " in " + zipFile.getAbsolutePath());
             }
             
-            BufferedReader rd = new BufferedReader(new InputStreamReader(zip.getInputStream(ze)));
-            loadData(rd);
+            ByteLineReader rd = new ByteLineReader(zip.getInputStream(ze));
+            loadData(rd, 0, null);
         }
         finally
         {
@@ -112,217 +721,472 @@ public class DataLoader
     /**
      * Load NJSON data from a reader.
      * @param rd reader
+     * @param startRecord number of records already loaded (skipped) from this data file
+     * @param tracker checkpoint tracker or null
      * @throws Exception an exception
      */
-    private void loadData(BufferedReader rd) throws Exception
+    private void loadData(LineReader rd, long startRecord, CheckpointTracker tracker) throws Exception
     {
-        totalRecords = 0;
+        LoadContext ctx = new LoadContext();
+        ctx.checkpoint = tracker;
         
         try
         {
-            String firstLine = rd.readLine();
-            // File is empty
-            if(firstLine == null || firstLine.isEmpty()) return;
+            ctx.client = (sharedClient == null) ? EsClientFactory.createRestClient(esUrl, authConfigFile) : sharedClient;
+            BatchReader batchReader = new BatchReader(rd, startRecord);
             
-            while((firstLine = loadBatch(rd, firstLine)) != null)
+            if(numThreads > 1)
+            {
+                loadDataPipelined(ctx, batchReader);
+            }
+            else
             {
-                if(totalRecords % printProgressSize == 0)
+                Batch batch;
+                while((batch = readBatch(batchReader)) != null)
                 {
-                    Logger.info("Loaded " + totalRecords + " document(s)");
+                    loadBatch(ctx, batch);
                 }
             }
             
-            Logger.info("Loaded " + totalRecords + " document(s)");
+            logResult(ctx);
         }
         finally
         {
             CloseUtils.close(rd);
+            // Dead-letter file is reopened on the next write if other loads are still running.
+            CloseUtils.close(deadLetter);
+            if(ctx.client != sharedClient) CloseUtils.close(ctx.client);
         }
     }
 
     
     /**
-     * Load next batch of NJSON (new-line-delimited JSON) data.
-     * @param fileReader Reader object with NJSON data.
-     * @param firstLine NJSON file has 2 lines per record: 1 - primary key, 2 - data record.
-     * This is the primary key line.
-     * @return First line of 2-line NJSON record (line 1: primary key, line 2: data)
+     * Load NJSON data from a reader in pipelined mode. This (calling) thread 
+     * reads batches into a bounded queue. Worker threads post the batches
+     * to Elasticsearch. If any of the workers fails, loading stops and 
+     * the first error is thrown.
+     * @param ctx load context
+     * @param rd batch reader
      * @throws Exception an exception
      */
-    private String loadBatch(BufferedReader fileReader, String firstLine) throws Exception
+    private void loadDataPipelined(LoadContext ctx, BatchReader rd) throws Exception
     {
-        HttpURLConnection con = null;
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(numThreads * 2);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        for(int i = 0; i < numThreads; i++)
+        {
+            pool.execute(() -> runWorker(ctx, queue, error));
+        }
         
         try
         {
-            con = conFactory.createConnection();
-            con.setDoInput(true);
-            con.setDoOutput(true);
-            con.setRequestMethod("POST");
-            con.setRequestProperty("content-type", "application/x-ndjson; charset=utf-8");
-            
-            OutputStreamWriter writer = new OutputStreamWriter(con.getOutputStream(), "UTF-8");
-            
-            // First record
-            String line1 = firstLine;
-            String line2 = fileReader.readLine();
-            if(line2 == null) throw new Exception("Premature end of file");
-            
-            writer.write(line1);
-            writer.write("\n");
-            writer.write(line2);
-            writer.write("\n");
-            
-            int numRecords = 1;
-            while(numRecords < batchSize)
+            Batch batch;
+            while(error.get() == null && (batch = readBatch(rd)) != null)
             {
-                line1 = fileReader.readLine();
-                if(line1 == null) break;
-                
-                line2 = fileReader.readLine();
-                if(line2 == null) throw new Exception("Premature end of file");
-                
-                writer.write(line1);
-                writer.write("\n");
-                writer.write(line2);
-                writer.write("\n");
-                
-                numRecords++;
+                putBatch(queue, batch, error);
             }
-            
-            if(numRecords == batchSize)
+
+            stopWorkers(pool, queue, error, numThreads);
+        }
+        finally
+        {
+            // Reader or one of the workers failed
+            if(!pool.isTerminated())
             {
-                // Let's find out if there are more records
-                line1 = fileReader.readLine();
-                if(line1 != null && line1.isEmpty()) line1 = null;
+                pool.shutdownNow();
             }
-            
-            writer.flush();
-            writer.close();
+        }
         
-            // Check for Elasticsearch errors.
-            String respJson = getLastLine(con.getInputStream());
-            Logger.debug(respJson);
-            
-            if(responseHasErrors(respJson))
+        if(error.get() != null) throw error.get();
+    }
+    
+    
+    /**
+     * Wait for worker threads to load all queued batches and stop.
+     * @param pool worker thread pool
+     * @param queue batch queue
+     * @param error first worker error
+     * @param numWorkers number of worker threads
+     * @throws InterruptedException an exception
+     */
+    private static void stopWorkers(ExecutorService pool, BlockingQueue<Batch> queue, 
+            AtomicReference<Exception> error, int numWorkers) throws InterruptedException
+    {
+        for(int i = 0; i < numWorkers; i++)
+        {
+            putBatch(queue, END_OF_DATA, error);
+        }
+        
+        pool.shutdown();
+        
+        // Cancel idle workers if one of the workers failed
+        while(!pool.awaitTermination(100, TimeUnit.MILLISECONDS))
+        {
+            if(error.get() != null) pool.shutdownNow();
+        }
+    }
+    
+    
+    /**
+     * Put a batch into the queue. Give up if one of the workers failed.
+     * @param queue batch queue
+     * @param batch a batch
+     * @param error first worker error
+     * @throws InterruptedException an exception
+     */
+    private static void putBatch(BlockingQueue<Batch> queue, Batch batch, 
+            AtomicReference<Exception> error) throws InterruptedException
+    {
+        while(error.get() == null)
+        {
+            if(queue.offer(batch, 100, TimeUnit.MILLISECONDS)) return;
+        }
+    }
+    
+    
+    /**
+     * Worker thread. Takes batches from the queue and posts them to Elasticsearch.
+     * @param ctx load context
+     * @param queue batch queue
+     * @param error first worker error
+     */
+    private void runWorker(LoadContext ctx, BlockingQueue<Batch> queue, AtomicReference<Exception> error)
+    {
+        try
+        {
+            while(error.get() == null)
             {
-                throw new Exception("Could not load data.");
+                Batch batch = queue.take();
+                if(batch == END_OF_DATA) return;
+                
+                loadBatch(ctx, batch);
             }
-            
-            totalRecords += numRecords;
-
-            return line1;
         }
-        catch(UnknownHostException ex)
+        catch(InterruptedException ex)
         {
-            throw new Exception("Unknown host " + conFactory.getHostName());
+            // Loading was cancelled
         }
-        catch(IOException ex)
+        catch(Exception ex)
         {
-            // Get HTTP response code
-            int respCode = getResponseCode(con);
-            if(respCode <= 0) throw ex;
-            
-            // Try extracting JSON from multi-line error response (last line) 
-            String json = getLastLine(con.getErrorStream());
-            if(json == null) throw ex;
-            
-            // Parse error JSON to extract reason.
-            String msg = EsUtils.extractReasonFromJson(json);
-            if(msg == null) msg = json;
-            
-            throw new Exception(msg);
+            error.compareAndSet(null, ex);
         }
     }
     
     
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    private boolean responseHasErrors(String resp)
+    /**
+     * Read next batch of NJSON (new-line-delimited JSON) data.
+     * NJSON file has 2 lines per record: 1 - primary key, 2 - data record.
+     * @param rd batch reader
+     * @return next batch or null if there is no more data.
+     * @throws Exception an exception
+     */
+    private Batch readBatch(BatchReader rd) throws Exception
     {
-        try
+        return rd.next(getBatchSize(), maxBatchBytes);
+    }
+    
+    
+    /**
+     * Get maximum number of records in the next batch.
+     * @return batch size
+     */
+    private int getBatchSize()
+    {
+        return (batchSizeController == null) ? batchSize : batchSizeController.getBatchSize();
+    }
+    
+    
+    /**
+     * Load a batch of NJSON (new-line-delimited JSON) data.
+     * If Elasticsearch rejects the request (HTTP 429 - Too Many Requests), 
+     * the batch is retried several times with increasing delay.
+     * If some documents fail with temporary errors, only failed documents are retried.
+     * @param ctx load context
+     * @param batch a batch of NJSON records
+     * @throws Exception an exception
+     */
+    private void loadBatch(LoadContext ctx, Batch batch) throws Exception
+    {
+        long delay = RETRY_DELAY;
+        int numLoaded = 0;
+        
+        for(int attempt = 1; ; attempt++)
         {
-            // Parse JSON response
-            Gson gson = new Gson();
-            Map json = (Map)gson.fromJson(resp, Object.class);
+            List<BulkResponseParser.ItemError> errors;
             
-            Boolean hasErrors = (Boolean)json.get("errors");
-            if(hasErrors)
+            try
             {
-                List<Object> list = (List)json.get("items");
+                long startTime = System.currentTimeMillis();
+                errors = postBatch(ctx, batch);
+                long latency = System.currentTimeMillis() - startTime;
                 
-                // List size = batch size (one item per document)
-                // NOTE: Only few items in the list could have errors
-                for(Object item: list)
+                if(batchSizeController != null)
+                {
+                    batchSizeController.onSuccess(batch.numRecords, latency);
+                }
+            }
+            catch(RejectedException ex)
+            {
+                if(batchSizeController != null)
                 {
-                    Map index = (Map)((Map)item).get("index");
-                    Map error = (Map)index.get("error");
-                    if(error != null)
-                    {
-                        String message = (String)error.get("reason");
-                        Logger.error(message);
-                        return true;
-                    }
+                    batchSizeController.onRejected();
                 }
+                
+                if(attempt > MAX_RETRIES) throw new Exception(ex.getMessage());
+                
+                Logger.warn(ex.getMessage() + " Will retry in " + delay + " ms.");
+                Thread.sleep(delay);
+                delay *= 2;
+                continue;
             }
+            
+            numLoaded += batch.numRecords - errors.size();
+            if(errors.isEmpty()) break;
 
-            return false;
+            // Split failed documents into temporary (retry) and permanent failures
+            Batch retryBatch = new Batch(errors.size());
+            retryBatch.seq = batch.seq;
+            retryBatch.endOffset = batch.endOffset;
+            retryBatch.endRecord = batch.endRecord;
+            List<BulkResponseParser.ItemError> permanentErrors = new ArrayList<>();
+            
+            for(BulkResponseParser.ItemError err: errors)
+            {
+                if(isRetryable(err) && attempt <= MAX_RETRIES)
+                {
+                    addRecord(retryBatch, batch, err.position);
+                }
+                else
+                {
+                    permanentErrors.add(err);
+                }
+            }
+            
+            if(!permanentErrors.isEmpty())
+            {
+                handlePermanentErrors(ctx, batch, permanentErrors);
+            }
+            
+            if(retryBatch.numRecords == 0) break;
+            
+            if(batchSizeController != null)
+            {
+                batchSizeController.onRejected();
+            }
+            
+            Logger.warn("Elasticsearch rejected " + retryBatch.numRecords 
+                    + " document(s). Will retry in " + delay + " ms.");
+            Thread.sleep(delay);
+            delay *= 2;
+            
+            batch = retryBatch;
         }
-        catch(Exception ex)
+        
+        if(ctx.checkpoint != null)
+        {
+            ctx.checkpoint.onBatchLoaded(batch);
+        }
+        
+        int total = ctx.numLoaded.addAndGet(numLoaded);
+        
+        if(progress != null)
+        {
+            progress.addDocuments(numLoaded);
+        }
+        else if(total / printProgressSize != (total - numLoaded) / printProgressSize)
         {
-            return false;
+            Logger.info("Loaded " + total + " document(s)");
         }
     }
     
     
     /**
-     * Get HTTP response code, e.g., 200 (OK)
-     * @param con HTTP connection
-     * @return HTTP response code, e.g., 200 (OK)
+     * Write permanently failed records to the dead-letter file. 
+     * If dead-letter file is not set, throw an exception.
+     * @param ctx load context
+     * @param batch a batch of NJSON records
+     * @param errors permanently failed items from the "_bulk" response
+     * @throws Exception an exception
      */
-    private static int getResponseCode(HttpURLConnection con)
+    private void handlePermanentErrors(LoadContext ctx, Batch batch, 
+            List<BulkResponseParser.ItemError> errors) throws Exception
     {
-        if(con == null) return -1;
-        
-        try
+        if(deadLetter == null)
         {
-            return con.getResponseCode();
+            logErrors(errors);
+            throw new Exception("Could not load data.");
         }
-        catch(Exception ex)
+        
+        for(BulkResponseParser.ItemError err: errors)
         {
-            return -1;
+            Logger.warn("Could not load document " + err.id + ": " + err.reason);
+            
+            int idx = err.position * 2;
+            deadLetter.write(batch.lines.get(idx), batch.lines.get(idx + 1));
+            ctx.numFailed.incrementAndGet();
         }
     }
-
+    
     
     /**
-     * This method is used to parse multi-line Elasticsearch error responses.
-     * JSON error response is on the last line of a message.
-     * @param is input stream
-     * @return Last line
+     * Copy a record from one batch to another.
+     * @param to target batch
+     * @param from source batch
+     * @param position record position in the source batch
      */
-    private static String getLastLine(InputStream is)
+    private static void addRecord(Batch to, Batch from, int position)
     {
-        String lastLine = null;
+        ByteBuffer line1 = from.lines.get(position * 2);
+        ByteBuffer line2 = from.lines.get(position * 2 + 1);
+        
+        to.lines.add(line1);
+        to.lines.add(line2);
+        to.numRecords++;
+        to.numBytes += line1.remaining() + line2.remaining() + 2;
+    }
 
+    
+    /**
+     * Temporary failures, such as rejections because of full queues, can be retried.
+     * Other failures, such as mapping errors, are permanent.
+     * @param err failed item from the "_bulk" response
+     * @return true if the document can be resubmitted
+     */
+    private static boolean isRetryable(BulkResponseParser.ItemError err)
+    {
+        if(err.status == 429 || err.status == 503) return true;
+        if("es_rejected_execution_exception".equals(err.type)) return true;
+        if("unavailable_shards_exception".equals(err.type)) return true;
+        
+        return false;
+    }
+    
+    
+    /**
+     * Post a batch of NJSON (new-line-delimited JSON) data to Elasticsearch "_bulk" API.
+     * @param ctx load context
+     * @param batch a batch of NJSON records
+     * @return a list of failed documents. The list is empty if all documents were loaded.
+     * @throws Exception an exception
+     */
+    private List<BulkResponseParser.ItemError> postBatch(LoadContext ctx, Batch batch) throws Exception
+    {
+        Request req = new Request("POST", "/" + indexName + "/_bulk");
+        NJsonEntity entity = new NJsonEntity(batch.lines, batch.numBytes);
+        entity.setCompressionLevel(compressionLevel);
+        req.setEntity(entity);
+        
         try
         {
-            BufferedReader rd = new BufferedReader(new InputStreamReader(is));
-
-            String line;
-            while((line = rd.readLine()) != null)
+            Response resp = ctx.client.performRequest(req);
+            
+            if(entity.getCompressedLength() > 0)
             {
-                lastLine = line;
+                ctx.rawBytes.addAndGet(batch.numBytes);
+                ctx.compressedBytes.addAndGet(entity.getCompressedLength());
             }
+            
+            // Check for Elasticsearch errors.
+            BulkResponseParser parser = new BulkResponseParser();
+            return parser.parse(resp.getEntity());
         }
-        catch(Exception ex)
+        catch(ResponseException ex)
         {
-            // Ignore
+            int respCode = ex.getResponse().getStatusLine().getStatusCode();
+            if(respCode == 429)
+            {
+                throw new RejectedException("Elasticsearch rejected bulk request (HTTP 429).");
+            }
+            
+            throw new Exception(EsUtils.extractErrorMessage(ex));
         }
-        finally
+        catch(IOException ex)
         {
-            CloseUtils.close(is);
+            String msg = getConnectionErrorMessage(ex);
+            if(msg == null) throw ex;
+            throw new Exception(msg);
+        }
+    }
+    
+    
+    /**
+     * Get a user-friendly message for connection errors, such as unknown host
+     * or connection refused. Elasticsearch REST client can wrap original exception.
+     * @param ex an exception
+     * @return error message or null if this is not a connection error
+     */
+    private String getConnectionErrorMessage(IOException ex)
+    {
+        for(Throwable tw = ex; tw != null; tw = tw.getCause())
+        {
+            if(tw instanceof UnknownHostException)
+            {
+                // Message is "<host>" or "<host>: <reason>"
+                String host = tw.getMessage();
+                if(host != null && host.indexOf(':') > 0) host = host.substring(0, host.indexOf(':'));
+                return "Unknown host " + host;
+            }
+            
+            if(tw instanceof ConnectException || tw instanceof NoRouteToHostException)
+            {
+                return "Could not connect to Elasticsearch" + ((esUrl == null) ? "" : " at " + esUrl) 
+                        + ": " + tw.getMessage();
+            }
         }
         
-        return lastLine;
+        return null;
+    }
+    
+    
+    /**
+     * Save and log the number of loaded and failed records of one load call.
+     * @param ctx load context
+     */
+    private void logResult(LoadContext ctx)
+    {
+        totalRecords.set(ctx.numLoaded.get());
+        Logger.info("Loaded " + ctx.numLoaded.get() + " document(s)");
+        logCompressionRatio(ctx);
+        
+        if(ctx.numFailed.get() > 0)
+        {
+            Logger.warn("Could not load " + ctx.numFailed.get() + " document(s). See " 
+                    + deadLetter.getFile().getAbsolutePath());
+        }
+    }
+    
+    
+    /**
+     * Log compression ratio of request bodies sent by one load call.
+     * @param ctx load context
+     */
+    private static void logCompressionRatio(LoadContext ctx)
+    {
+        long raw = ctx.rawBytes.get();
+        long compressed = ctx.compressedBytes.get();
+        if(compressed <= 0) return;
+        
+        String ratio = String.format("%.1f", (double)raw / compressed);
+        Logger.info("Compressed " + raw + " bytes to " + compressed + " bytes (ratio " + ratio + ")");
+    }
+    
+    
+    /**
+     * Log failed documents. The reason of the first error is always printed.
+     * Other errors are printed in debug mode.
+     * @param errors a list of failed items from a "_bulk" response
+     */
+    private static void logErrors(List<BulkResponseParser.ItemError> errors)
+    {
+        BulkResponseParser.ItemError first = errors.get(0);
+        Logger.error(first.reason);
+        
+        for(BulkResponseParser.ItemError err: errors)
+        {
+            Logger.debug("Could not load document " + err.id + " (status " + err.status 
+                    + ", " + err.type + "): " + err.reason);
+        }
     }
 }
@@ -0,0 +1,219 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import gov.nasa.pds.registry.mgr.util.CloseUtils;
+import gov.nasa.pds.registry.mgr.util.Logger;
+
+
+/**
+ * Local (on-disk) cache of Elasticsearch data types of registry fields
+ * (field name -&gt; "es_data_type" from data dictionary index).
+ *
+ * <p>Data types are grouped by LDD namespace. Each group stores the date
+ * of the LDD the data types were read from. The cache is validated against
+ * LDD dates in data dictionary index ("LDD_Info" records). If an LDD was
+ * reloaded or deleted, all data types of its namespace are dropped.
+ * Fields of namespaces without "LDD_Info" record (e.g., custom dictionaries
+ * loaded from CSV files) are never cached.
+ *
+ * <p>The cache file is a JSON file. It is replaced atomically when saved.
+ *
+ * @author karpenko
+ */
+public class DataTypeCache
+{
+    /**
+     * Data types of one LDD namespace
+     */
+    private static class NsEntry
+    {
+        public String date;
+        public Map<String, String> fields = new TreeMap<>();
+    }
+
+    private File file;
+    // Key: namespace
+    private Map<String, NsEntry> entries = new TreeMap<>();
+    // Current LDD dates in data dictionary index. Key: namespace
+    private Map<String, Instant> lddDates = new TreeMap<>();
+    private boolean modified;
+
+
+    /**
+     * Constructor
+     * @param file cache file
+     */
+    public DataTypeCache(File file)
+    {
+        this.file = file;
+    }
+
+
+    /**
+     * Get default cache file for an Elasticsearch index:
+     * "$HOME/.registry-manager/dd-cache-&lt;host_port&gt;-&lt;index&gt;.json".
+     * @param esUrl Elasticsearch URL, e.g., "http://localhost:9200"
+     * @param indexName Elasticsearch base index name, e.g., "registry"
+     * @return cache file
+     */
+    public static File getDefaultFile(String esUrl, String indexName)
+    {
+        String host = esUrl.replaceFirst("^[a-zA-Z]+://", "").replaceFirst("/+$", "");
+        String name = ("dd-cache-" + host + "-" + indexName).replaceAll("[^a-zA-Z0-9._-]", "_") + ".json";
+
+        File dir = new File(System.getProperty("user.home"), ".registry-manager");
+        return new File(dir, name);
+    }
+
+
+    /**
+     * Load the cache file. If the file doesn't exist or could not be read,
+     * the cache is empty.
+     */
+    public void load()
+    {
+        entries.clear();
+        if(!file.exists()) return;
+
+        Reader rd = null;
+        try
+        {
+            rd = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+            Type type = new TypeToken<TreeMap<String, NsEntry>>() {}.getType();
+            Map<String, NsEntry> map = new Gson().fromJson(rd, type);
+            if(map != null) entries.putAll(map);
+        }
+        catch(Exception ex)
+        {
+            Logger.warn("Could not read data type cache " + file.getAbsolutePath());
+        }
+        finally
+        {
+            CloseUtils.close(rd);
+        }
+    }
+
+
+    /**
+     * Drop data types of LDDs which were reloaded or deleted
+     * after the data types were cached.
+     * @param lddDates current LDD dates in data dictionary index. Key: namespace
+     */
+    public void validate(Map<String, Instant> lddDates)
+    {
+        this.lddDates = lddDates;
+
+        Iterator<Map.Entry<String, NsEntry>> it = entries.entrySet().iterator();
+        while(it.hasNext())
+        {
+            Map.Entry<String, NsEntry> entry = it.next();
+            Instant date = lddDates.get(entry.getKey());
+
+            if(date == null || !date.toString().equals(entry.getValue().date))
+            {
+                Logger.debug("Dropping cached data types of namespace '" + entry.getKey() + "'");
+                it.remove();
+                modified = true;
+            }
+        }
+    }
+
+
+    /**
+     * Get cached data type of a field.
+     * @param fieldName field name, e.g., "pds:Array_3D/pds:axes"
+     * @return Elasticsearch data type or null if the field is not cached
+     */
+    public String getDataType(String fieldName)
+    {
+        String ns = SchemaDao.getFieldNamespace(fieldName);
+        if(ns == null) return null;
+
+        NsEntry entry = entries.get(ns);
+        return (entry == null) ? null : entry.fields.get(fieldName);
+    }
+
+
+    /**
+     * Cache data type of a field. The field is only cached if the namespace
+     * of the field has an LDD date (see {@link #validate(Map)}).
+     * @param fieldName field name, e.g., "pds:Array_3D/pds:axes"
+     * @param dataType Elasticsearch data type
+     */
+    public void put(String fieldName, String dataType)
+    {
+        String ns = SchemaDao.getFieldNamespace(fieldName);
+        if(ns == null || dataType == null) return;
+
+        Instant date = lddDates.get(ns);
+        if(date == null) return;
+
+        NsEntry entry = entries.get(ns);
+        if(entry == null)
+        {
+            entry = new NsEntry();
+            entry.date = date.toString();
+            entries.put(ns, entry);
+        }
+
+        if(!dataType.equals(entry.fields.put(fieldName, dataType)))
+        {
+            modified = true;
+        }
+    }
+
+
+    /**
+     * Save the cache file if the cache was modified.
+     * Errors are logged, but not thrown.
+     */
+    public void save()
+    {
+        if(!modified) return;
+
+        File tmpFile = new File(file.getAbsolutePath() + ".tmp");
+        Writer wr = null;
+
+        try
+        {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if(!dir.exists()) dir.mkdirs();
+
+            wr = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8);
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            gson.toJson(entries, wr);
+            wr.close();
+
+            Files.move(tmpFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        }
+        catch(Exception ex)
+        {
+            Logger.warn("Could not save data type cache " + file.getAbsolutePath() + ": " + ex.getMessage());
+        }
+        finally
+        {
+            CloseUtils.close(wr);
+        }
+    }
+}
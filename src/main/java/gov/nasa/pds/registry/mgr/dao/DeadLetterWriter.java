@@ -0,0 +1,99 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import gov.nasa.pds.registry.mgr.util.Logger;
+import gov.nasa.pds.registry.mgr.util.file.ByteBufferUtils;
+
+
+/**
+ * Writes NJSON (new-line-delimited JSON) records which could not be loaded 
+ * into Elasticsearch into a "dead-letter" file. 
+ * The file has the same format as the original data file, so failed 
+ * records can be fixed and loaded again.
+ * 
+ * <p>The file is created (or appended to) on the first write. 
+ * If the writer is closed, the file is reopened on the next write. 
+ * This class is thread-safe.
+ * 
+ * @author karpenko
+ */
+public class DeadLetterWriter implements Closeable
+{
+    private File file;
+    private OutputStream os;
+    private int numRecords;
+    
+    
+    /**
+     * Constructor
+     * @param file dead-letter file
+     */
+    public DeadLetterWriter(File file)
+    {
+        this.file = file;
+    }
+
+    
+    /**
+     * Write one NJSON record (2 lines).
+     * @param line1 primary key line (UTF-8 bytes without new-line character)
+     * @param line2 data line (UTF-8 bytes without new-line character)
+     * @throws IOException an exception
+     */
+    public synchronized void write(ByteBuffer line1, ByteBuffer line2) throws IOException
+    {
+        if(os == null)
+        {
+            Logger.info("Writing failed records to " + file.getAbsolutePath());
+            os = new BufferedOutputStream(new FileOutputStream(file, true));
+        }
+        
+        ByteBufferUtils.write(os, line1);
+        os.write('\n');
+        ByteBufferUtils.write(os, line2);
+        os.write('\n');
+        
+        numRecords++;
+    }
+    
+    
+    /**
+     * Get dead-letter file.
+     * @return file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+    
+    
+    /**
+     * Get number of records written to the dead-letter file.
+     * @return number of records
+     */
+    public synchronized int getNumRecords()
+    {
+        return numRecords;
+    }
+    
+    
+    /**
+     * Close the file
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if(os != null)
+        {
+            os.close();
+            os = null;
+        }
+    }
+}
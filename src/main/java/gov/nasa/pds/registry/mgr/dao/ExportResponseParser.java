@@ -0,0 +1,277 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.HttpEntity;
+
+import com.google.gson.JsonParser;
+
+import gov.nasa.pds.registry.mgr.util.CloseUtils;
+import gov.nasa.pds.registry.mgr.util.es.EsDocWriter;
+import gov.nasa.pds.registry.mgr.util.json.RawJsonScanner;
+import gov.nasa.pds.registry.mgr.util.json.RawJsonScanner.RawBuffer;
+
+
+/**
+ * This class is used by DataExporter to parse Elasticsearch search responses
+ * (point-in-time search, scroll and plain "_search" with "search_after").
+ * Writes every hit into an NJSON file and extracts values needed to request
+ * the next page: scroll ID, point-in-time ID, and the ID and sort values
+ * of the last hit.
+ *
+ * <p>Hits are not deserialized. "_source" of each hit is copied as raw bytes
+ * from the HTTP response to the output file and document ID is copied into
+ * the action line as is. Buffers are reused between hits, so there is almost
+ * no memory allocation per exported document.
+ *
+ * <p>Sort values are kept as raw JSON, because numeric values,
+ * such as "_shard_doc", do not fit into a double without losing precision.
+ *
+ * @author karpenko
+ */
+public class ExportResponseParser
+{
+    private static final byte[] SCROLL_ID = quoted("_scroll_id");
+    private static final byte[] PIT_ID = quoted("pit_id");
+    private static final byte[] HITS = quoted("hits");
+    private static final byte[] ID = quoted("_id");
+    private static final byte[] SOURCE = quoted("_source");
+    private static final byte[] SORT = quoted("sort");
+
+    private static final byte[] EMPTY_OBJECT = { '{', '}' };
+
+    // Reusable buffers
+    private RawBuffer id = new RawBuffer(256);
+    private RawBuffer source = new RawBuffer(4096);
+    private RawBuffer sort = new RawBuffer(256);
+    private RawBuffer tmp = new RawBuffer(256);
+
+    private String scrollId;
+    private String pitId;
+    private boolean hasLastHit;
+    private int numDocs;
+
+
+    /**
+     * Constructor
+     */
+    public ExportResponseParser()
+    {
+    }
+
+
+    /**
+     * Parse search response
+     * @param entity HTTP response entity
+     * @param writer every hit is written to this writer
+     * @throws Exception an exception
+     */
+    public void parse(HttpEntity entity, EsDocWriter writer) throws Exception
+    {
+        scrollId = null;
+        pitId = null;
+        hasLastHit = false;
+        numDocs = 0;
+
+        InputStream is = entity.getContent();
+
+        try
+        {
+            RawJsonScanner sc = new RawJsonScanner(is);
+            sc.beginObject();
+
+            while(sc.hasNext())
+            {
+                sc.nextName();
+                RawBuffer name = sc.getName();
+
+                if(name.contentEquals(SCROLL_ID))
+                {
+                    scrollId = nextString(sc);
+                }
+                else if(name.contentEquals(PIT_ID))
+                {
+                    pitId = nextString(sc);
+                }
+                else if(name.contentEquals(HITS))
+                {
+                    parseHits(sc, writer);
+                }
+                else
+                {
+                    sc.skipValue();
+                }
+            }
+
+            sc.endObject();
+        }
+        finally
+        {
+            CloseUtils.close(is);
+        }
+    }
+
+
+    /**
+     * Get scroll ID of the last parsed response.
+     * @return scroll ID
+     */
+    public String getScrollId()
+    {
+        return scrollId;
+    }
+
+
+    /**
+     * Get point-in-time ID of the last parsed response.
+     * Elasticsearch can return updated ID which should be used in the next request.
+     * @return point-in-time ID or null
+     */
+    public String getPitId()
+    {
+        return pitId;
+    }
+
+
+    /**
+     * Get ID of the last hit.
+     * @return document ID or null if there were no hits
+     */
+    public String getLastId()
+    {
+        if(!hasLastHit || id.size() == 0) return null;
+        return JsonParser.parseString(id.toString(StandardCharsets.UTF_8)).getAsString();
+    }
+
+
+    /**
+     * Get sort values of the last hit as a raw JSON array,
+     * which can be passed to "search_after" parameter as is.
+     * @return JSON array or null if there were no hits or the hits were not sorted
+     */
+    public String getLastSort()
+    {
+        if(!hasLastHit || sort.size() == 0) return null;
+        return sort.toString(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Get number of hits in the last parsed response.
+     * @return number of documents
+     */
+    public int getNumDocs()
+    {
+        return numDocs;
+    }
+
+
+    private void parseHits(RawJsonScanner sc, EsDocWriter writer) throws Exception
+    {
+        sc.beginObject();
+
+        while(sc.hasNext())
+        {
+            sc.nextName();
+            if(sc.getName().contentEquals(HITS))
+            {
+                sc.beginArray();
+                while(sc.hasNext())
+                {
+                    parseHit(sc, writer);
+                    numDocs++;
+                }
+                sc.endArray();
+            }
+            else
+            {
+                sc.skipValue();
+            }
+        }
+
+        sc.endObject();
+    }
+
+
+    private void parseHit(RawJsonScanner sc, EsDocWriter writer) throws Exception
+    {
+        id.reset();
+        sort.reset();
+        // "_source" is buffered only if it comes before "_id"
+        source.reset();
+        boolean hasSource = false;
+        boolean written = false;
+
+        sc.beginObject();
+
+        while(sc.hasNext())
+        {
+            sc.nextName();
+            RawBuffer name = sc.getName();
+
+            if(name.contentEquals(ID))
+            {
+                sc.copyValue(id);
+            }
+            else if(name.contentEquals(SOURCE))
+            {
+                hasSource = true;
+                if(id.size() > 0)
+                {
+                    // Copy directly to the output file
+                    writer.writeActionLine(id.array(), 0, id.size());
+                    sc.copyValue(writer.getDataStream());
+                    writer.endRecord();
+                    written = true;
+                }
+                else
+                {
+                    sc.copyValue(source);
+                }
+            }
+            else if(name.contentEquals(SORT))
+            {
+                sc.copyValue(sort);
+            }
+            else
+            {
+                sc.skipValue();
+            }
+        }
+
+        sc.endObject();
+
+        if(!written)
+        {
+            if(id.size() == 0) throw new Exception("Invalid search response. Missing document ID.");
+
+            writer.writeActionLine(id.array(), 0, id.size());
+            if(hasSource)
+            {
+                writer.getDataStream().write(source.array(), 0, source.size());
+            }
+            else
+            {
+                writer.getDataStream().write(EMPTY_OBJECT);
+            }
+            writer.endRecord();
+        }
+
+        hasLastHit = true;
+    }
+
+
+    private String nextString(RawJsonScanner sc) throws Exception
+    {
+        tmp.reset();
+        sc.copyValue(tmp);
+        return JsonParser.parseString(tmp.toString(StandardCharsets.UTF_8)).getAsString();
+    }
+
+
+    private static byte[] quoted(String name)
+    {
+        return ("\"" + name + "\"").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,200 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import gov.nasa.pds.registry.mgr.util.Logger;
+
+
+/**
+ * Loads several NJSON data files concurrently. Files are grouped by
+ * data loader (Elasticsearch index). Maximum number of files loaded at
+ * the same time is limited by a global cap. When a load slot is free,
+ * the next file is taken from the group with the fewest running loads,
+ * so all indices share the slots fairly.
+ *
+ * <p>If one of the files fails, no new files are started.
+ * Files which are already running are allowed to finish (and checkpoint)
+ * and the first error is thrown.
+ *
+ * @author karpenko
+ */
+public class FileLoadScheduler
+{
+    /**
+     * Files to be loaded by one data loader.
+     */
+    private static class FileGroup
+    {
+        public DataLoader loader;
+        public Deque<File> files = new ArrayDeque<>();
+        public int running;
+
+        public FileGroup(DataLoader loader)
+        {
+            this.loader = loader;
+        }
+    }
+
+
+    /**
+     * A file to load and its group.
+     */
+    private static class FileTask
+    {
+        public FileGroup group;
+        public File file;
+    }
+
+
+    private int maxFiles;
+    private Map<DataLoader, FileGroup> groups = new LinkedHashMap<>();
+    private LoadProgress progress;
+
+    private int numFiles;
+    private Exception error;
+
+
+    /**
+     * Constructor
+     * @param maxFiles maximum number of files to load concurrently
+     * @param progress aggregate progress. Should also be set in all data loaders.
+     */
+    public FileLoadScheduler(int maxFiles, LoadProgress progress)
+    {
+        if(maxFiles <= 0) throw new IllegalArgumentException("Max files should be > 0");
+        this.maxFiles = maxFiles;
+        this.progress = progress;
+    }
+
+
+    /**
+     * Add a file to load.
+     * @param loader data loader
+     * @param file NJSON data file
+     */
+    public void addFile(DataLoader loader, File file)
+    {
+        FileGroup group = groups.get(loader);
+        if(group == null)
+        {
+            group = new FileGroup(loader);
+            groups.put(loader, group);
+        }
+
+        group.files.add(file);
+        numFiles++;
+    }
+
+
+    /**
+     * Load all files.
+     * @throws Exception the first error
+     */
+    public void run() throws Exception
+    {
+        if(numFiles == 0) return;
+
+        int numThreads = Math.min(maxFiles, numFiles);
+        if(numThreads == 1)
+        {
+            // Load files in the calling thread
+            runWorker();
+        }
+        else
+        {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            try
+            {
+                for(int i = 0; i < numThreads; i++)
+                {
+                    pool.execute(this::runWorker);
+                }
+
+                pool.shutdown();
+                while(!pool.awaitTermination(1, TimeUnit.SECONDS));
+            }
+            finally
+            {
+                if(!pool.isTerminated()) pool.shutdownNow();
+            }
+        }
+
+        synchronized(this)
+        {
+            if(error != null) throw error;
+        }
+
+        Logger.info("Loaded " + progress.getNumDocuments() + " document(s) from "
+                + numFiles + " file(s) (" + progress.getRate() + " docs/sec)");
+    }
+
+
+    /**
+     * Load files until there are no more files or one of the loads fails.
+     */
+    private void runWorker()
+    {
+        FileTask task;
+        while((task = startNext()) != null)
+        {
+            try
+            {
+                task.group.loader.loadFile(task.file);
+
+                long num = progress.addFile();
+                Logger.info("Finished " + task.file.getName() + " (" + num + " of " + numFiles + " files)");
+            }
+            catch(Exception ex)
+            {
+                onError(task.file, ex);
+            }
+            finally
+            {
+                synchronized(this)
+                {
+                    task.group.running--;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Take next file from the group with pending files and the fewest running loads.
+     * @return next file or null if there are no more files or there was an error.
+     */
+    private synchronized FileTask startNext()
+    {
+        if(error != null) return null;
+
+        FileGroup best = null;
+        for(FileGroup group: groups.values())
+        {
+            if(group.files.isEmpty()) continue;
+            if(best == null || group.running < best.running) best = group;
+        }
+
+        if(best == null) return null;
+
+        FileTask task = new FileTask();
+        task.group = best;
+        task.file = best.files.poll();
+        best.running++;
+
+        return task;
+    }
+
+
+    private synchronized void onError(File file, Exception ex)
+    {
+        Logger.error("Could not load " + file.getAbsolutePath() + ": " + ex.getMessage());
+        if(error == null) error = ex;
+    }
+}
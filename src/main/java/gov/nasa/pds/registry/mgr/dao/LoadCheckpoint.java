@@ -0,0 +1,180 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import gov.nasa.pds.registry.mgr.util.CloseUtils;
+import gov.nasa.pds.registry.mgr.util.Logger;
+import gov.nasa.pds.registry.mgr.util.file.PartFileOutputStream;
+
+
+/**
+ * Load checkpoint of an NJSON data file. The checkpoint is stored in a 
+ * "sidecar" file next to the data file, e.g., "registry-docs.json.checkpoint".
+ * 
+ * <p>A checkpoint has the byte offset of the first record which was not 
+ * acknowledged by Elasticsearch yet and the number of acknowledged records.
+ * The size and modification time of the data file are also saved to detect 
+ * data files changed after the checkpoint was created.
+ * For gzip-compressed data files, the offset is in uncompressed data.
+ * 
+ * @author karpenko
+ */
+public class LoadCheckpoint
+{
+    private static final String EXT = ".checkpoint";
+    
+    /**
+     * Data file
+     */
+    public File dataFile;
+    
+    /**
+     * Data file size in bytes
+     */
+    public long fileSize;
+    
+    /**
+     * Data file modification time
+     */
+    public long fileModified;
+    
+    /**
+     * Byte offset of the first record which was not loaded yet.
+     */
+    public long offset;
+    
+    /**
+     * Number of records acknowledged by Elasticsearch.
+     */
+    public long numRecords;
+    
+    
+    /**
+     * Constructor
+     * @param dataFile NJSON data file
+     */
+    public LoadCheckpoint(File dataFile)
+    {
+        this.dataFile = dataFile;
+        this.fileSize = dataFile.length();
+        this.fileModified = dataFile.lastModified();
+    }
+    
+    
+    /**
+     * Get checkpoint (sidecar) file of a data file.
+     * @param dataFile NJSON data file
+     * @return checkpoint file
+     */
+    public static File getCheckpointFile(File dataFile)
+    {
+        return new File(dataFile.getAbsolutePath() + EXT);
+    }
+    
+    
+    /**
+     * Read checkpoint of a data file.
+     * @param dataFile NJSON data file
+     * @return checkpoint or null if there is no valid checkpoint for this data file.
+     */
+    public static LoadCheckpoint read(File dataFile)
+    {
+        File file = getCheckpointFile(dataFile);
+        if(!file.exists()) return null;
+        
+        Reader rd = null;
+        
+        try
+        {
+            rd = new FileReader(file);
+            Properties props = new Properties();
+            props.load(rd);
+            
+            LoadCheckpoint cp = new LoadCheckpoint(dataFile);
+            long size = Long.parseLong(props.getProperty("file.size"));
+            long modified = Long.parseLong(props.getProperty("file.modified"));
+            
+            if(size != cp.fileSize || modified != cp.fileModified)
+            {
+                Logger.warn("Data file " + dataFile.getAbsolutePath() 
+                        + " was modified after the checkpoint was created. Ignoring the checkpoint.");
+                return null;
+            }
+            
+            cp.offset = Long.parseLong(props.getProperty("offset"));
+            cp.numRecords = Long.parseLong(props.getProperty("records"));
+            
+            if(cp.offset < 0) return null;
+            // Offsets in compressed files are offsets in uncompressed data
+            if(cp.offset > cp.fileSize && !PartFileOutputStream.isGzipFile(dataFile)) return null;
+            
+            return cp;
+        }
+        catch(Exception ex)
+        {
+            Logger.warn("Could not read checkpoint file " + file.getAbsolutePath());
+            return null;
+        }
+        finally
+        {
+            CloseUtils.close(rd);
+        }
+    }
+
+    
+    /**
+     * Write checkpoint (sidecar) file. The file is replaced atomically,
+     * so a crash in the middle of writing doesn't corrupt existing checkpoint.
+     * @throws Exception an exception
+     */
+    public void write() throws Exception
+    {
+        File file = getCheckpointFile(dataFile);
+        File tmpFile = new File(file.getAbsolutePath() + ".tmp");
+        
+        Properties props = new Properties();
+        props.setProperty("file", dataFile.getAbsolutePath());
+        props.setProperty("file.size", String.valueOf(fileSize));
+        props.setProperty("file.modified", String.valueOf(fileModified));
+        props.setProperty("offset", String.valueOf(offset));
+        props.setProperty("records", String.valueOf(numRecords));
+        
+        try
+        {
+            Writer wr = new FileWriter(tmpFile);
+            try
+            {
+                props.store(wr, "Registry Manager load checkpoint");
+            }
+            finally
+            {
+                CloseUtils.close(wr);
+            }
+            
+            Files.move(tmpFile.toPath(), file.toPath(), 
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(Exception ex)
+        {
+            tmpFile.delete();
+            throw ex;
+        }
+    }
+    
+    
+    /**
+     * Delete checkpoint (sidecar) file of a data file.
+     * @param dataFile NJSON data file
+     */
+    public static void delete(File dataFile)
+    {
+        getCheckpointFile(dataFile).delete();
+    }
+}
@@ -0,0 +1,78 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.nasa.pds.registry.mgr.util.Logger;
+
+
+/**
+ * Aggregate progress of several concurrent data loads.
+ * Progress is printed every N documents across all loads.
+ * This class is thread-safe.
+ *
+ * @author karpenko
+ */
+public class LoadProgress
+{
+    private int printProgressSize;
+    private long startTime;
+
+    private AtomicLong numLoaded = new AtomicLong();
+    private AtomicLong numFiles = new AtomicLong();
+
+
+    /**
+     * Constructor
+     * @param printProgressSize print progress every N documents
+     */
+    public LoadProgress(int printProgressSize)
+    {
+        this.printProgressSize = printProgressSize;
+        this.startTime = System.currentTimeMillis();
+    }
+
+
+    /**
+     * Add loaded documents.
+     * @param num number of documents loaded by one batch
+     */
+    public void addDocuments(int num)
+    {
+        long total = numLoaded.addAndGet(num);
+        if(total / printProgressSize != (total - num) / printProgressSize)
+        {
+            Logger.info("Loaded " + total + " document(s) total (" + getRate() + " docs/sec)");
+        }
+    }
+
+
+    /**
+     * Increment the number of loaded files.
+     * @return number of loaded files
+     */
+    public long addFile()
+    {
+        return numFiles.incrementAndGet();
+    }
+
+
+    /**
+     * Get total number of loaded documents.
+     * @return number of documents
+     */
+    public long getNumDocuments()
+    {
+        return numLoaded.get();
+    }
+
+
+    /**
+     * Get average load rate.
+     * @return documents per second
+     */
+    public long getRate()
+    {
+        long time = System.currentTimeMillis() - startTime;
+        return (time == 0) ? 0 : numLoaded.get() * 1000 / time;
+    }
+}
@@ -45,10 +45,38 @@ public class RegistryDataExporter extends DataExporter
         RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
         
         String json = (filterFieldName == null) ? 
-                reqBld.createExportAllDataRequest("lidvid", batchSize, searchAfter) :
-                reqBld.createExportDataRequest(filterFieldName, filterFieldValue, "lidvid", batchSize, searchAfter);
+                reqBld.createExportAllDataRequest("lidvid", batchSize, searchAfter, getIncludes(), getExcludes()) :
+                reqBld.createExportDataRequest(filterFieldName, filterFieldValue, "lidvid", batchSize, searchAfter, 
+                        getIncludes(), getExcludes());
 
         return json;
     }
 
+    
+    /**
+     * Create Elasticsearch point-in-time JSON query. 
+     * Not sliced export is sorted by LIDVID. Slices are sorted by "_shard_doc" only.
+     */
+    @Override
+    protected String createPitRequest(int batchSize, String pitId, String keepAlive,
+            String searchAfter, int sliceId, int maxSlices) throws Exception
+    {
+        RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
+        String sortField = (maxSlices > 1) ? null : "lidvid";
+        
+        return reqBld.createPitExportDataRequest(filterFieldName, filterFieldValue, sortField, 
+                batchSize, pitId, keepAlive, searchAfter, sliceId, maxSlices, getIncludes(), getExcludes());
+    }
+
+    
+    /**
+     * Create Elasticsearch JSON query to start a sliced scroll.
+     */
+    @Override
+    protected String createSliceRequest(int batchSize, int sliceId, int maxSlices) throws Exception
+    {
+        RegistryRequestBuilder reqBld = new RegistryRequestBuilder();
+        return reqBld.createSlicedScrollRequest(filterFieldName, filterFieldValue, batchSize, sliceId, maxSlices, 
+                getIncludes(), getExcludes());
+    }
 }
@@ -5,6 +5,8 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -121,6 +123,26 @@ public class RegistryRequestBuilder
      */
     public String createExportDataRequest(String filterField, String filterValue, 
             String sortField, int size, String searchAfter) throws IOException
+    {
+        return createExportDataRequest(filterField, filterValue, sortField, size, searchAfter, null, null);
+    }
+    
+    
+    /**
+     * Build export data request
+     * @param filterField Filter field name, such as "lidvid".
+     * @param filterValue Filter value.
+     * @param sortField Sort field is required to paginate data and use "search_after" field.
+     * @param size Batch / page size
+     * @param searchAfter "search_after" field to perform pagination
+     * @param includes "_source" fields to return. If null, all fields are returned.
+     * @param excludes "_source" fields to exclude, e.g., BLOBs. Can be null.
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createExportDataRequest(String filterField, String filterValue, 
+            String sortField, int size, String searchAfter,
+            List<String> includes, List<String> excludes) throws IOException
     {
         StringWriter out = new StringWriter();
         JsonWriter writer = createJsonWriter(out);
@@ -129,6 +151,9 @@ public class RegistryRequestBuilder
 
         // Size (number of records to return)
         writer.name("size").value(size);
+        
+        // Fields to return
+        EsQueryUtils.appendSourceFilter(writer, includes, excludes);
 
         // Filter query
         EsQueryUtils.appendFilterQuery(writer, filterField, filterValue);
@@ -161,6 +186,23 @@ public class RegistryRequestBuilder
      * @throws IOException an exception
      */
     public String createExportAllDataRequest(String sortField, int size, String searchAfter) throws IOException
+    {
+        return createExportAllDataRequest(sortField, size, searchAfter, null, null);
+    }
+    
+    
+    /**
+     * Build export all data request
+     * @param sortField Sort field is required to paginate data and use "search_after" field. 
+     * @param size Batch / page size
+     * @param searchAfter "search_after" field to perform pagination
+     * @param includes "_source" fields to return. If null, all fields are returned.
+     * @param excludes "_source" fields to exclude, e.g., BLOBs. Can be null.
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createExportAllDataRequest(String sortField, int size, String searchAfter,
+            List<String> includes, List<String> excludes) throws IOException
     {
         StringWriter out = new StringWriter();
         JsonWriter writer = createJsonWriter(out);
@@ -169,6 +211,9 @@ public class RegistryRequestBuilder
 
         // Size (number of records to return)
         writer.name("size").value(size);
+        
+        // Fields to return
+        EsQueryUtils.appendSourceFilter(writer, includes, excludes);
 
         // Match all query
         EsQueryUtils.appendMatchAllQuery(writer);
@@ -195,6 +240,216 @@ public class RegistryRequestBuilder
     }
 
     
+    /**
+     * Build point-in-time (PIT) export data request. Search results are sorted 
+     * by the sort field (optional) and "_shard_doc" tie-breaker.
+     * @param filterField Filter field name, such as "lidvid". If null, all documents are returned.
+     * @param filterValue Filter value.
+     * @param sortField Sort field. If null, documents are sorted only by "_shard_doc", 
+     * which is the most efficient order.
+     * @param size Batch / page size
+     * @param pitId point-in-time ID
+     * @param keepAlive how long Elasticsearch should keep the point-in-time alive, e.g., "5m"
+     * @param searchAfter Sort values of the last document of the previous page (raw JSON array) or null.
+     * @param sliceId Slice ID (0 to maxSlices - 1)
+     * @param maxSlices Total number of slices. If less than 2, the search is not sliced.
+     * @param includes "_source" fields to return. If null, all fields are returned.
+     * @param excludes "_source" fields to exclude, e.g., BLOBs. Can be null.
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createPitExportDataRequest(String filterField, String filterValue, String sortField, 
+            int size, String pitId, String keepAlive, String searchAfter, int sliceId, int maxSlices,
+            List<String> includes, List<String> excludes) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+
+        // Size (number of records to return)
+        writer.name("size").value(size);
+        // Don't count total hits on every page
+        writer.name("track_total_hits").value(false);
+        // Fields to return
+        EsQueryUtils.appendSourceFilter(writer, includes, excludes);
+
+        // Query
+        if(filterField == null)
+        {
+            EsQueryUtils.appendMatchAllQuery(writer);
+        }
+        else
+        {
+            EsQueryUtils.appendFilterQuery(writer, filterField, filterValue);
+        }
+
+        // Point in time
+        writer.name("pit");
+        writer.beginObject();
+        writer.name("id").value(pitId);
+        writer.name("keep_alive").value(keepAlive);
+        writer.endObject();
+        
+        // Slice
+        if(maxSlices > 1)
+        {
+            writer.name("slice");
+            writer.beginObject();
+            writer.name("id").value(sliceId);
+            writer.name("max").value(maxSlices);
+            writer.endObject();
+        }
+
+        // "search_after" parameter is used for pagination
+        if(searchAfter != null)
+        {
+            writer.name("search_after").jsonValue(searchAfter);
+        }
+
+        // Sort with "_shard_doc" tie-breaker
+        writer.name("sort");
+        writer.beginArray();
+        if(sortField != null)
+        {
+            writer.beginObject();
+            writer.name(sortField).value("asc");
+            writer.endObject();
+        }
+        writer.beginObject();
+        writer.name("_shard_doc").value("asc");
+        writer.endObject();
+        writer.endArray();
+
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+
+    /**
+     * Build close point-in-time request.
+     * @param pitId point-in-time ID
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createClosePitRequest(String pitId) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+        writer.name("id").value(pitId);
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+
+    /**
+     * Build the first request of a sliced scroll. Documents are sorted 
+     * by "_doc" (index order), which is the most efficient order for scrolling.
+     * @param filterField Filter field name, such as "lidvid". If null, all documents are returned.
+     * @param filterValue Filter value.
+     * @param size Batch / page size
+     * @param sliceId Slice ID (0 to maxSlices - 1)
+     * @param maxSlices Total number of slices. If less than 2, the scroll is not sliced.
+     * @param includes "_source" fields to return. If null, all fields are returned.
+     * @param excludes "_source" fields to exclude, e.g., BLOBs. Can be null.
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createSlicedScrollRequest(String filterField, String filterValue, 
+            int size, int sliceId, int maxSlices, List<String> includes, List<String> excludes) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+
+        // Size (number of records to return)
+        writer.name("size").value(size);
+        
+        // Fields to return
+        EsQueryUtils.appendSourceFilter(writer, includes, excludes);
+
+        // Query
+        if(filterField == null)
+        {
+            EsQueryUtils.appendMatchAllQuery(writer);
+        }
+        else
+        {
+            EsQueryUtils.appendFilterQuery(writer, filterField, filterValue);
+        }
+
+        // Slice
+        if(maxSlices > 1)
+        {
+            writer.name("slice");
+            writer.beginObject();
+            writer.name("id").value(sliceId);
+            writer.name("max").value(maxSlices);
+            writer.endObject();
+        }
+
+        // Index order
+        writer.name("sort");
+        writer.beginArray();
+        writer.value("_doc");
+        writer.endArray();
+
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+
+    /**
+     * Build "next page" request of a scroll.
+     * @param scrollId scroll ID returned by the previous request
+     * @param keepAlive how long Elasticsearch should keep the search context alive, e.g., "5m"
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createScrollRequest(String scrollId, String keepAlive) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+        writer.name("scroll").value(keepAlive);
+        writer.name("scroll_id").value(scrollId);
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+
+    /**
+     * Build clear scroll request.
+     * @param scrollId scroll ID
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createClearScrollRequest(String scrollId) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+        writer.name("scroll_id").value(scrollId);
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+
     /**
      * Build get BLOB request 
      * @param lidvid a LidVid
@@ -244,6 +499,27 @@ public class RegistryRequestBuilder
     }
 
     
+    /**
+     * Create Elasticsearch terms filter query. Matches documents having any of the values.
+     * @param field filter field name
+     * @param values filter values
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createTermsFilterQuery(String field, Collection<String> values) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+        EsQueryUtils.appendTermsFilterQuery(writer, field, values);
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+    
     /**
      * Build match all query
      * @return JSON
@@ -269,7 +545,9 @@ public class RegistryRequestBuilder
 
     
     /**
-     * Build update label status request
+     * Build update label status request. The request calls stored script 
+     * (see {@link #createSetArchiveStatusScriptRequest()}) and passes
+     * the status as a script parameter, so the script is compiled only once.
      * @param status new PDS label status
      * @param field filter field name
      * @param value filter value
@@ -283,7 +561,14 @@ public class RegistryRequestBuilder
 
         writer.beginObject();
         // Script
-        writer.name("script").value("ctx._source.archive_status = '" + status + "'");
+        writer.name("script");
+        writer.beginObject();
+        writer.name("id").value(Constants.SET_ARCHIVE_STATUS_SCRIPT);
+        writer.name("params");
+        writer.beginObject();
+        writer.name("status").value(status);
+        writer.endObject();
+        writer.endObject();
         // Query
         EsQueryUtils.appendFilterQuery(writer, field, value);
         writer.endObject();
@@ -292,4 +577,75 @@ public class RegistryRequestBuilder
         return out.toString();
     }
 
+    
+    /**
+     * Build "_bulk" partial update action line: {"update":{"_id":"..."}}
+     * @param id document ID
+     * @return JSON (one line)
+     * @throws IOException an exception
+     */
+    public String createBulkUpdateAction(String id) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+
+        writer.beginObject();
+        writer.name("update");
+        writer.beginObject();
+        writer.name("_id").value(id);
+        writer.endObject();
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+    
+    /**
+     * Build "_bulk" partial update data line to set label status: 
+     * {"doc":{"archive_status":"..."}}
+     * @param status new PDS label status
+     * @return JSON (one line)
+     * @throws IOException an exception
+     */
+    public String createBulkUpdateStatusDoc(String status) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+
+        writer.beginObject();
+        writer.name("doc");
+        writer.beginObject();
+        writer.name("archive_status").value(status);
+        writer.endObject();
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
+    
+    /**
+     * Build create stored script request for the "set archive status" script.
+     * The script sets "archive_status" field to the value of "status" parameter.
+     * @return JSON
+     * @throws IOException an exception
+     */
+    public String createSetArchiveStatusScriptRequest() throws IOException
+    {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = createJsonWriter(out);
+
+        writer.beginObject();
+        writer.name("script");
+        writer.beginObject();
+        writer.name("lang").value("painless");
+        writer.name("source").value("ctx._source.archive_status = params.status");
+        writer.endObject();
+        writer.endObject();
+
+        writer.close();
+        return out.toString();
+    }
+
 }
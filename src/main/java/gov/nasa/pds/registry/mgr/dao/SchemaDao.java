@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.RestClient;
@@ -52,12 +53,12 @@ public class SchemaDao
     
     
     /**
-     * Inner private class to parse LDD information response from Elasticsearch.
+     * Inner private class to parse a list of LDDs from Elasticsearch.
      * @author karpenko
      */
-    private static class GetLddDateRespParser extends SearchResponseParser implements SearchResponseParser.Callback
+    private static class ListLddsRespParser extends SearchResponseParser implements SearchResponseParser.Callback
     {
-        public Instant date = null;
+        public Map<String, Instant> dates = new TreeMap<>();
         
         @Override
         public void onRecord(String id, Object rec) throws Exception
@@ -66,34 +67,35 @@ public class SchemaDao
             {
                 @SuppressWarnings("rawtypes")
                 Map map = (Map)rec;
+                String namespace = (String)map.get("attr_name");
                 String strDate = (String)map.get("date");
-                if(strDate == null) return;
+                if(namespace == null || strDate == null) return;
 
-                date = Instant.parse(strDate);
+                dates.put(namespace, Instant.parse(strDate));
             }
         }
     }
     
+    
     /**
-     * Get LDD date from data dictionary index in Elasticsearch.
+     * Get dates of all LDDs loaded into data dictionary index in Elasticsearch.
      * @param indexName Elasticsearch base index name, e.g., "registry". 
      * NOTE: don't use full index name, like "registry-dd". 
-     * @param namespace LDD namespace, e.g., "pds", "geom", etc.
-     * @return ISO instant class representing LDD date.
+     * @return A map, where key = LDD namespace, value = LDD date.
      * @throws Exception an exception
      */
-    public Instant getLddDate(String indexName, String namespace) throws Exception
+    public Map<String, Instant> getLddDates(String indexName) throws Exception
     {
         SchemaRequestBuilder bld = new SchemaRequestBuilder();
-        String json = bld.createGetLddInfoRequest(namespace);
+        String json = bld.createListLddsRequest();
 
         Request req = new Request("GET", "/" + indexName + "-dd/_search");
         req.setJsonEntity(json);
         Response resp = client.performRequest(req);
         
-        GetLddDateRespParser parser = new GetLddDateRespParser();
+        ListLddsRespParser parser = new ListLddsRespParser();
         parser.parseResponse(resp, parser); 
-        return parser.date;
+        return parser.dates;
     }
     
     
@@ -182,10 +184,11 @@ public class SchemaDao
     
     /**
      * Extract class namespace from a field ID.
+     * Class namespace is the namespace of the LDD defining this field.
      * @param fieldId Standard PDS registry field id "namespace:Class/namespace:field".
      * @return class namespace
      */
-    private static String getFieldNamespace(String fieldId)
+    public static String getFieldNamespace(String fieldId)
     {
         int idx = fieldId.indexOf(':');
         if(idx < 1) return null;
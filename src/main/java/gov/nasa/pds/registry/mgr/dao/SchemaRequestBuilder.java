@@ -108,27 +108,43 @@ public class SchemaRequestBuilder
 
 
     /**
-     * Create get data dictionary (LDD) info request.
-     * @param namespace LDD namespace ID, such as 'pds', 'cart', etc.
+     * Create a request to get information (namespace, date) of all LDDs 
+     * loaded into data dictionary ("LDD_Info" records).
      * @return Elasticsearch query in JSON format
      * @throws IOException an exception
      */
-    public String createGetLddInfoRequest(String namespace) throws IOException
+    public String createListLddsRequest() throws IOException
     {
         StringWriter wr = new StringWriter();
         JsonWriter jw = createJsonWriter(wr);
 
         jw.beginObject();
+        
+        jw.name("size").value(10000);
 
         // Start query
         jw.name("query");
         jw.beginObject();
-        jw.name("ids");
+        jw.name("bool");
         jw.beginObject();
         
-        jw.name("values");
+        jw.name("filter");
         jw.beginArray();
-        jw.value("registry:LDD_Info/registry:" + namespace);
+        
+        jw.beginObject();
+        jw.name("term");
+        jw.beginObject();
+        jw.name("class_ns").value("registry");
+        jw.endObject();
+        jw.endObject();
+        
+        jw.beginObject();
+        jw.name("term");
+        jw.beginObject();
+        jw.name("class_name").value("LDD_Info");
+        jw.endObject();
+        jw.endObject();
+        
         jw.endArray();
         
         jw.endObject();
@@ -138,7 +154,7 @@ public class SchemaRequestBuilder
         // Start source
         jw.name("_source");
         jw.beginArray();
-        jw.value("date").value("version");
+        jw.value("attr_name").value("date");
         jw.endArray();        
         // End source
         
@@ -10,6 +10,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.elasticsearch.client.RestClient;
 
@@ -18,6 +22,7 @@ import gov.nasa.pds.registry.mgr.dd.LddLoader;
 import gov.nasa.pds.registry.mgr.dd.LddUtils;
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
+import gov.nasa.pds.registry.mgr.util.Tuple;
 import gov.nasa.pds.registry.mgr.util.file.FileDownloader;
 
 
@@ -32,12 +37,29 @@ import gov.nasa.pds.registry.mgr.util.file.FileDownloader;
  * If a field definition is not available in the data dictionary index,
  * the latest version of LDD will be downloaded if needed.
  * 
+ * If a data type cache file is configured, data types are first looked up 
+ * in the local cache (see {@link DataTypeCache}). Only fields missing from 
+ * the cache are looked up in the data dictionary index.
+ * 
+ * Data types of all new fields are looked up before the schema is updated.
+ * Lookups are split into large "_mget" requests which are sent concurrently, 
+ * so the number of round trips doesn't grow linearly with the number of fields.
+ * 
  * @author karpenko
  */
 public class SchemaUpdater
 {
     private static final String WARN_LDD_NA = "Could not load list of LDDs. Automatic data dictionary updates are not available.";
     
+    // Number of field IDs in one "_mget" request to data dictionary index
+    private static final int MGET_CHUNK_SIZE = 1000;
+    // Maximum number of concurrent "_mget" requests
+    private static final int MAX_MGET_THREADS = 4;
+    // Number of fields in one "_mapping" request
+    private static final int MAPPING_BATCH_SIZE = 10000;
+    // Maximum number of LDDs downloaded and loaded concurrently
+    private static final int MAX_LDD_THREADS = 4;
+    
     private SchemaDao dao;
 
     private Map<String, LddInfo> remoteLddMap;
@@ -45,14 +67,11 @@ public class SchemaUpdater
     
     private Set<String> esFieldNames;
     
-    private Set<String> batch;
-    private int totalCount;
-    private int batchSize = 100;
-    
     private SchemaUpdaterConfig cfg;
 
     private FileDownloader fileDownloader = new FileDownloader();
     private LddLoader lddLoader;
+    private DataTypeCache dtCache;
     
     /**
      * Constructor 
@@ -70,7 +89,13 @@ public class SchemaUpdater
         // Get a list of existing field names from Elasticsearch
         this.esFieldNames = dao.getFieldNames(cfg.indexName);
         
-        this.batch = new TreeSet<>();
+        // Load local data type cache and drop data types of updated LDDs
+        if(cfg.dataTypeCacheFile != null)
+        {
+            dtCache = new DataTypeCache(cfg.dataTypeCacheFile);
+            dtCache.load();
+            dtCache.validate(dao.getLddDates(cfg.indexName));
+        }
     }
 
     
@@ -81,79 +106,171 @@ public class SchemaUpdater
      */
     public void updateSchema(File file) throws Exception
     {
-        List<String> newFields = getNewFields(file);
-
-        totalCount = 0;
-        batch.clear();
-
-        for(String newField: newFields)
+        Set<String> newFields = new TreeSet<>();
+        for(String name: getNewFields(file))
         {
-            addField(newField);
+            if(!esFieldNames.contains(name)) newFields.add(name);
         }
 
-        finish();
-        Logger.info("Updated " + totalCount + " fields");
+        updateSchema(newFields);
+        
+        if(dtCache != null) dtCache.save();
+        Logger.info("Updated " + newFields.size() + " fields");
     }
     
-    
+
     /**
-     * Add one field to a batch.
-     * @param name field name
+     * Add new fields to Elasticsearch "registry" index. 
+     * Data types of all fields are looked up first (concurrently, in large 
+     * "_mget" chunks), then the fields are added in as few schema updates as possible.
+     * @param fields field names to add
      * @throws Exception an exception
      */
-    private void addField(String name) throws Exception
+    public void updateSchema(Set<String> fields) throws Exception
     {
-        if(esFieldNames.contains(name)) return;
+        if(fields == null || fields.isEmpty()) return;
         
-        // Add field request to the batch
-        batch.add(name);
-        totalCount++;
-
-        // Commit if reached batch/commit size
-        if(totalCount % batchSize == 0)
+        List<Tuple> resolvedFields = new ArrayList<>(fields.size());
+        DataTypesInfo info = getDataTypes(fields, resolvedFields, false);
+        
+        if(info.lastMissingField != null)
+        {
+            // Some fields are missing. Update LDDs if needed.
+            boolean updated = updateLdds(info.missingNamespaces);
+            
+            // LDDs are up-to-date or LDD list is not available
+            if(!updated) throw new DataTypeNotFoundException(info.lastMissingField);
+            
+            // LDDs were updated. Drop cached data types of updated LDDs.
+            if(dtCache != null) dtCache.validate(dao.getLddDates(cfg.indexName));
+            
+            // Resolve all fields again. Stop (throw exception) on first missing field.
+            resolvedFields.clear();
+            getDataTypes(fields, resolvedFields, true);
+        }
+        
+        // Add fields to the schema
+        for(int i = 0; i < resolvedFields.size(); i += MAPPING_BATCH_SIZE)
         {
-            updateSchema(batch);
-            batch.clear();
+            int end = Math.min(i + MAPPING_BATCH_SIZE, resolvedFields.size());
+            dao.updateSchema(cfg.indexName, resolvedFields.subList(i, end));
         }
     }
     
     
-    private void finish() throws Exception
-    {
-        if(batch.isEmpty()) return;
-        updateSchema(batch);
-    }
-    
-
     /**
-     * Add new fields to Elasticsearch "registry" index. 
-     * @param batch A batch of field names to add
+     * Get data types of fields. Data types are first looked up in the local cache.
+     * Other fields are looked up in the data dictionary index. Large lists are
+     * split into chunks and "_mget" requests are sent concurrently.
+     * Data types from the data dictionary index are added to the local cache.
+     * @param fields field names
+     * @param resolvedFields fields with data types are added to this list
+     * @param stopOnFirstMissing If true, throw DataTypeNotFoundException on first 
+     * field missing from Elasticsearch data dictionary.
+     * @return information about missing fields
      * @throws Exception an exception
      */
-    public void updateSchema(Set<String> batch) throws Exception
+    private DataTypesInfo getDataTypes(Set<String> fields, List<Tuple> resolvedFields, 
+            boolean stopOnFirstMissing) throws Exception
     {
-        DataTypesInfo info = dao.getDataTypes(cfg.indexName, batch, false);
-        if(info.lastMissingField == null) 
+        // Resolve data types from the local cache
+        List<String> uncachedFields = new ArrayList<>();
+        for(String field: fields)
+        {
+            String dataType = (dtCache == null) ? null : dtCache.getDataType(field);
+            if(dataType != null)
+            {
+                resolvedFields.add(new Tuple(field, dataType));
+            }
+            else
+            {
+                uncachedFields.add(field);
+            }
+        }
+        
+        // Split the rest into "_mget" chunks
+        List<List<String>> chunks = new ArrayList<>();
+        for(int i = 0; i < uncachedFields.size(); i += MGET_CHUNK_SIZE)
         {
-            dao.updateSchema(cfg.indexName, info.newFields);
-            return;
+            int end = Math.min(i + MGET_CHUNK_SIZE, uncachedFields.size());
+            chunks.add(uncachedFields.subList(i, end));
         }
         
-        // Some fields are missing. Update LDDs if needed.
-        boolean updated = updateLdds(info.missingNamespaces);
+        DataTypesInfo info = new DataTypesInfo();
+        
+        if(chunks.size() == 1)
+        {
+            addDataTypes(info, dao.getDataTypes(cfg.indexName, chunks.get(0), stopOnFirstMissing));
+        }
+        else if(chunks.size() > 1)
+        {
+            int numThreads = Math.min(chunks.size(), MAX_MGET_THREADS);
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            
+            try
+            {
+                List<Future<DataTypesInfo>> futures = new ArrayList<>(chunks.size());
+                for(List<String> chunk: chunks)
+                {
+                    futures.add(pool.submit(() -> dao.getDataTypes(cfg.indexName, chunk, stopOnFirstMissing)));
+                }
+                
+                // Wait for all chunks. Throw the first error.
+                for(Future<DataTypesInfo> future: futures)
+                {
+                    try
+                    {
+                        addDataTypes(info, future.get());
+                    }
+                    catch(ExecutionException ex)
+                    {
+                        pool.shutdownNow();
+                        Throwable cause = ex.getCause();
+                        throw (cause instanceof Exception) ? (Exception)cause : ex;
+                    }
+                }
+            }
+            finally
+            {
+                pool.shutdownNow();
+            }
+        }
         
-        // LDDs are up-to-date or LDD list is not available
-        if(!updated) throw new DataTypeNotFoundException(info.lastMissingField);
+        // Cache data types looked up in the data dictionary index
+        if(dtCache != null)
+        {
+            for(Tuple field: info.newFields)
+            {
+                dtCache.put(field.item1, field.item2);
+            }
+        }
         
-        // LDDs were updated. Reload last batch. Stop (throw exception) on first missing field.
-        info = dao.getDataTypes(cfg.indexName, batch, true);
-        dao.updateSchema(cfg.indexName, info.newFields);
+        resolvedFields.addAll(info.newFields);
+        return info;
+    }
+    
+    
+    /**
+     * Merge data types information of one "_mget" chunk.
+     * @param info merged information
+     * @param chunkInfo information of one chunk
+     */
+    private static void addDataTypes(DataTypesInfo info, DataTypesInfo chunkInfo)
+    {
+        info.newFields.addAll(chunkInfo.newFields);
+        info.missingNamespaces.addAll(chunkInfo.missingNamespaces);
+        if(chunkInfo.lastMissingField != null)
+        {
+            info.lastMissingField = chunkInfo.lastMissingField;
+        }
     }
     
     
     /**
      * Update LDDs in Elasticsearch data dictionary. 
      * Only update if remote LDD date is after LDD date in Elasticsearch.
+     * Local LDD dates are read with one query. LDD files are downloaded 
+     * and loaded concurrently.
      * @param namespaces A list of namespaces to update.
      * @return true if at least one LDD was updated.
      * @throws Exception an exception
@@ -174,7 +291,21 @@ public class SchemaUpdater
             return false;
         }
         
-        boolean updated = false;
+        // Get local LDD dates (one query for all namespaces)
+        if(!localLddMap.keySet().containsAll(namespaces))
+        {
+            Map<String, Instant> dates = dao.getLddDates(cfg.indexName);
+            for(String namespace: namespaces)
+            {
+                if(localLddMap.containsKey(namespace)) continue;
+                Instant date = dates.get(namespace);
+                localLddMap.put(namespace, (date == null) ? Instant.MIN : date);
+            }
+        }
+        
+        // Find LDDs to update
+        List<LddInfo> lddsToUpdate = new ArrayList<>();
+        List<String> nsToUpdate = new ArrayList<>();
         
         for(String namespace: namespaces)
         {
@@ -185,31 +316,100 @@ public class SchemaUpdater
                 continue;
             }
 
-            // Get local LDD date
-            if(!localLddMap.containsKey(namespace))
+            // Load the latest version of remote LDD
+            if(localLddMap.get(namespace).isBefore(remoteLdd.date))
             {
-                Instant date = dao.getLddDate(cfg.indexName, namespace);
-                if(date == null) date = Instant.MIN;
-                localLddMap.put(namespace, date);
+                lddsToUpdate.add(remoteLdd);
+                nsToUpdate.add(namespace);
             }
+        }
+        
+        if(lddsToUpdate.isEmpty()) return false;
+        
+        List<File> lddFiles = downloadLdds(lddsToUpdate);
+        
+        // Load all LDDs at once
+        int numThreads = Math.min(lddFiles.size(), MAX_LDD_THREADS);
+        List<LddLoader.LoadStatus> statusList = lddLoader.load(lddFiles, nsToUpdate, numThreads);
+        
+        for(int i = 0; i < statusList.size(); i++)
+        {
+            LddLoader.LoadStatus status = statusList.get(i);
+            if(status.error != null) throw status.error;
+            localLddMap.put(nsToUpdate.get(i), lddsToUpdate.get(i).date);
+        }
+        
+        return true;
+    }
 
-            Instant localDate = localLddMap.get(namespace);
-            Instant remoteDate = remoteLdd.date;
+    
+    /**
+     * Download LDD files concurrently. A file is downloaded only once 
+     * even if several namespaces share the same URL.
+     * @param ldds LDDs to download
+     * @return downloaded files (in the same order as LDDs)
+     * @throws Exception an exception
+     */
+    private List<File> downloadLdds(List<LddInfo> ldds) throws Exception
+    {
+        // Key: URL
+        Map<String, File> urlMap = new TreeMap<>();
+        List<File> files = new ArrayList<>(ldds.size());
+        
+        for(LddInfo ldd: ldds)
+        {
+            File lddFile = urlMap.get(ldd.url);
+            if(lddFile == null)
+            {
+                lddFile = new File(cfg.tempDir, getFileNameFromUrl(ldd.url));
+                urlMap.put(ldd.url, lddFile);
+            }
             
-            // Load the latest version of remote LDD
-            if(localDate.isBefore(remoteDate))
+            files.add(lddFile);
+        }
+        
+        if(urlMap.size() == 1)
+        {
+            Map.Entry<String, File> entry = urlMap.entrySet().iterator().next();
+            fileDownloader.download(entry.getKey(), entry.getValue());
+            return files;
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(urlMap.size(), MAX_LDD_THREADS));
+        
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>(urlMap.size());
+            for(Map.Entry<String, File> entry: urlMap.entrySet())
             {
-                String fileName = getFileNameFromUrl(remoteLdd.url);
-                File lddFile = new File(cfg.tempDir, fileName);
-                
-                fileDownloader.download(remoteLdd.url, lddFile);
-                lddLoader.load(lddFile, namespace);
-                localLddMap.put(namespace, remoteDate);
-                updated = true;
+                futures.add(pool.submit(() -> 
+                {
+                    fileDownloader.download(entry.getKey(), entry.getValue());
+                    return null;
+                }));
             }
+            
+            // Wait for all downloads. Throw the first error.
+            for(Future<?> future: futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch(ExecutionException ex)
+                {
+                    pool.shutdownNow();
+                    Throwable cause = ex.getCause();
+                    throw (cause instanceof Exception) ? (Exception)cause : ex;
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
         }
         
-        return updated;
+        return files;
     }
 
     
@@ -24,6 +24,11 @@ public class SchemaUpdaterConfig
      */
     public File tempDir;
     
+    /**
+     * Local data type cache file (see {@link DataTypeCache}). If null, the cache is not used.
+     */
+    public File dataTypeCacheFile;
+    
 
     /**
      * Constructor
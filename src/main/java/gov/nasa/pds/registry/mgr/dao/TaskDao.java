@@ -0,0 +1,343 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+
+import com.google.gson.Gson;
+
+import gov.nasa.pds.registry.mgr.util.CloseUtils;
+import gov.nasa.pds.registry.mgr.util.Logger;
+
+
+/**
+ * Data Access Object (DAO) to run Elasticsearch "by query" APIs
+ * ("_delete_by_query", "_update_by_query") as asynchronous tasks
+ * and to get task status from the task API. "By query" tasks can be throttled
+ * ("requests_per_second"), rethrottled and cancelled while running.
+ *
+ * @author karpenko
+ */
+public class TaskDao
+{
+    /**
+     * Status of an asynchronous Elasticsearch task
+     */
+    public static class TaskStatus
+    {
+        public String taskId;
+        public boolean completed;
+        
+        /**
+         * Task action, e.g., "indices:data/write/delete/byquery"
+         */
+        public String action;
+        public String description;
+        public long runningTimeMillis;
+        
+        /**
+         * Throttle. Negative value means unlimited.
+         */
+        public double requestsPerSecond = -1;
+
+        public long total;
+        public long created;
+        public long updated;
+        public long deleted;
+        public long versionConflicts;
+
+        /**
+         * Error message or null if there were no errors
+         */
+        public String error;
+
+        /**
+         * Number of processed documents (created, updated or deleted)
+         * @return number of documents
+         */
+        public long getNumProcessed()
+        {
+            return created + updated + deleted;
+        }
+    }
+
+
+    private RestClient client;
+
+    /**
+     * Constructor
+     * @param client Elasticsearch client
+     */
+    public TaskDao(RestClient client)
+    {
+        this.client = client;
+    }
+
+
+    /**
+     * Submit a "by query" request as an asynchronous task. The request is
+     * automatically parallelized by Elasticsearch ("slices=auto").
+     * @param indexName Elasticsearch index name
+     * @param api "by query" API, e.g., "_delete_by_query" or "_update_by_query"
+     * @param json request body
+     * @return task ID
+     * @throws Exception an exception
+     */
+    public String submitByQueryTask(String indexName, String api, String json) throws Exception
+    {
+        return submitByQueryTask(indexName, api, json, -1);
+    }
+    
+    
+    /**
+     * Submit a throttled "by query" request as an asynchronous task. The request is
+     * automatically parallelized by Elasticsearch ("slices=auto").
+     * @param indexName Elasticsearch index name
+     * @param api "by query" API, e.g., "_delete_by_query" or "_update_by_query"
+     * @param json request body
+     * @param requestsPerSecond throttle (sub-requests per second, i.e., documents 
+     * per second for "by query" APIs). If not positive, the request is not throttled.
+     * @return task ID
+     * @throws Exception an exception
+     */
+    @SuppressWarnings("rawtypes")
+    public String submitByQueryTask(String indexName, String api, String json, 
+            double requestsPerSecond) throws Exception
+    {
+        Request req = new Request("POST", "/" + indexName + "/" + api);
+        req.addParameter("wait_for_completion", "false");
+        req.addParameter("slices", "auto");
+        if(requestsPerSecond > 0)
+        {
+            req.addParameter("requests_per_second", String.valueOf(requestsPerSecond));
+        }
+        req.setJsonEntity(json);
+
+        Response resp = client.performRequest(req);
+        Map map = parseJson(resp);
+
+        Object taskId = map.get("task");
+        if(taskId == null) throw new Exception("Invalid " + api + " response. Missing task ID.");
+
+        return taskId.toString();
+    }
+
+
+    /**
+     * Get status of an asynchronous task.
+     * @param taskId task ID
+     * @return task status
+     * @throws Exception an exception
+     */
+    @SuppressWarnings("rawtypes")
+    public TaskStatus getTaskStatus(String taskId) throws Exception
+    {
+        Request req = new Request("GET", "/_tasks/" + taskId);
+        Response resp = client.performRequest(req);
+        Map map = parseJson(resp);
+
+        TaskStatus status = new TaskStatus();
+        status.taskId = taskId;
+        status.completed = Boolean.TRUE.equals(map.get("completed"));
+
+        Map task = (Map)map.get("task");
+        if(task != null) parseTask(task, status);
+
+        // Final counts are in the response of completed tasks
+        Map counts = (Map)map.get("response");
+        if(counts != null) parseCounts(counts, status);
+
+        Object error = map.get("error");
+        if(error instanceof Map)
+        {
+            Object reason = ((Map)error).get("reason");
+            status.error = (reason != null) ? reason.toString() : error.toString();
+        }
+
+        return status;
+    }
+
+
+    /**
+     * Delete the result of a completed task from the ".tasks" index.
+     * Elasticsearch stores results of tasks submitted with "wait_for_completion=false"
+     * and never deletes them. Errors are logged and ignored.
+     * @param taskId task ID
+     */
+    public void deleteTaskResult(String taskId)
+    {
+        try
+        {
+            Request req = new Request("DELETE", "/.tasks/_doc/" + taskId);
+            client.performRequest(req);
+        }
+        catch(Exception ex)
+        {
+            Logger.warn("Could not delete result of task " + taskId + ": " + ex.getMessage());
+        }
+    }
+
+
+    /**
+     * List running "by query" tasks. Sub-tasks of sliced requests are not listed.
+     * @return task status list
+     * @throws Exception an exception
+     */
+    @SuppressWarnings("rawtypes")
+    public List<TaskStatus> listByQueryTasks() throws Exception
+    {
+        Request req = new Request("GET", "/_tasks");
+        req.addParameter("actions", "*byquery");
+        req.addParameter("detailed", "true");
+        req.addParameter("group_by", "parents");
+        Response resp = client.performRequest(req);
+        Map map = parseJson(resp);
+
+        List<TaskStatus> list = new ArrayList<>();
+
+        Object tasks = map.get("tasks");
+        if(tasks instanceof Map)
+        {
+            for(Object obj: ((Map)tasks).entrySet())
+            {
+                Map.Entry entry = (Map.Entry)obj;
+                TaskStatus status = new TaskStatus();
+                status.taskId = entry.getKey().toString();
+                parseTask((Map)entry.getValue(), status);
+                list.add(status);
+            }
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Change throttle of a running "by query" task.
+     * @param taskId task ID
+     * @param requestsPerSecond new throttle. If not positive, the task is not throttled.
+     * @throws Exception an exception
+     */
+    public void rethrottle(String taskId, double requestsPerSecond) throws Exception
+    {
+        TaskStatus status = getTaskStatus(taskId);
+        if(status.completed) throw new Exception("Task " + taskId + " is already completed");
+
+        String api = getByQueryApi(status.action);
+        if(api == null) throw new Exception("Task " + taskId + " (" + status.action + ") can't be rethrottled");
+
+        Request req = new Request("POST", "/" + api + "/" + taskId + "/_rethrottle");
+        req.addParameter("requests_per_second", (requestsPerSecond > 0) ? String.valueOf(requestsPerSecond) : "-1");
+        client.performRequest(req);
+    }
+
+
+    /**
+     * Cancel a running task. Documents already deleted or updated 
+     * by a "by query" task are not restored.
+     * @param taskId task ID
+     * @throws Exception an exception
+     */
+    public void cancel(String taskId) throws Exception
+    {
+        Request req = new Request("POST", "/_tasks/" + taskId + "/_cancel");
+        client.performRequest(req);
+    }
+
+
+    /**
+     * Get "by query" API name from a task action.
+     * @param action task action, e.g., "indices:data/write/delete/byquery"
+     * @return API name, e.g., "_delete_by_query" or null
+     */
+    private static String getByQueryApi(String action)
+    {
+        if(action == null) return null;
+        if(action.endsWith("/delete/byquery")) return "_delete_by_query";
+        if(action.endsWith("/update/byquery")) return "_update_by_query";
+        if(action.endsWith("/reindex")) return "_reindex";
+        return null;
+    }
+
+
+    /**
+     * Parse task info
+     * @param task "task" object from the task API response
+     * @param status extracted values are saved in this object
+     */
+    @SuppressWarnings("rawtypes")
+    private static void parseTask(Map task, TaskStatus status)
+    {
+        Object obj = task.get("action");
+        if(obj != null) status.action = obj.toString();
+
+        obj = task.get("description");
+        if(obj != null) status.description = obj.toString();
+
+        status.runningTimeMillis = getLong(task, "running_time_in_nanos") / 1000000;
+
+        Map counts = (Map)task.get("status");
+        if(counts != null) parseCounts(counts, status);
+    }
+
+
+    /**
+     * Parse "by query" counters
+     * @param counts "status" object of a running task or "response" object of a completed task
+     * @param status extracted values are saved in this object
+     */
+    @SuppressWarnings("rawtypes")
+    private static void parseCounts(Map counts, TaskStatus status)
+    {
+        status.total = getLong(counts, "total");
+        status.created = getLong(counts, "created");
+        status.updated = getLong(counts, "updated");
+        status.deleted = getLong(counts, "deleted");
+        status.versionConflicts = getLong(counts, "version_conflicts");
+
+        Object obj = counts.get("requests_per_second");
+        if(obj instanceof Number) status.requestsPerSecond = ((Number)obj).doubleValue();
+
+        Object failures = counts.get("failures");
+        if(failures instanceof List && !((List)failures).isEmpty())
+        {
+            status.error = ((List)failures).size() + " failure(s). First failure: "
+                    + ((List)failures).get(0);
+        }
+    }
+
+
+    @SuppressWarnings("rawtypes")
+    private static Map parseJson(Response resp) throws Exception
+    {
+        InputStream is = resp.getEntity().getContent();
+        Reader rd = new InputStreamReader(is, StandardCharsets.UTF_8);
+
+        try
+        {
+            Object obj = new Gson().fromJson(rd, Object.class);
+            if(!(obj instanceof Map)) throw new Exception("Invalid Elasticsearch response");
+            return (Map)obj;
+        }
+        finally
+        {
+            CloseUtils.close(rd);
+        }
+    }
+
+
+    @SuppressWarnings("rawtypes")
+    private static long getLong(Map map, String key)
+    {
+        Object obj = map.get(key);
+        return (obj instanceof Number) ? ((Number)obj).longValue() : 0;
+    }
+}
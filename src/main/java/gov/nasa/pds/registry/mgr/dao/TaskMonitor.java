@@ -0,0 +1,179 @@
+package gov.nasa.pds.registry.mgr.dao;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.pds.registry.mgr.util.Logger;
+
+
+/**
+ * Tracks asynchronous Elasticsearch tasks submitted by {@link TaskDao}.
+ * Polls the task API until tasks complete, prints progress and aggregates
+ * the number of processed documents by label (e.g., by index name).
+ * Task IDs are printed, so running tasks can be rethrottled or cancelled
+ * by an operator.
+ *
+ * @author karpenko
+ */
+public class TaskMonitor
+{
+    // Poll interval grows from minimum to maximum, so short tasks complete quickly
+    private static final long MIN_POLL_INTERVAL = 250;
+    private static final long MAX_POLL_INTERVAL = 2000;
+
+    /**
+     * A running task
+     */
+    private static class RunningTask
+    {
+        public String taskId;
+        public String label;
+        public TaskDao.TaskStatus status;
+
+        public RunningTask(String taskId, String label)
+        {
+            this.taskId = taskId;
+            this.label = label;
+        }
+    }
+
+
+    private TaskDao dao;
+    private List<RunningTask> running = new ArrayList<>();
+
+    // Key: label, value: number of processed documents
+    private Map<String, Long> totals = new LinkedHashMap<>();
+    private List<String> errors = new ArrayList<>();
+    private int numCompleted;
+    private long pollInterval = MIN_POLL_INTERVAL;
+
+
+    /**
+     * Constructor
+     * @param dao task DAO
+     */
+    public TaskMonitor(TaskDao dao)
+    {
+        this.dao = dao;
+    }
+
+
+    /**
+     * Add a submitted task.
+     * @param taskId task ID
+     * @param label label to aggregate processed documents by, e.g., index name
+     */
+    public void add(String taskId, String label)
+    {
+        Logger.info("Started task " + taskId + " (" + label + ")");
+        running.add(new RunningTask(taskId, label));
+        totals.putIfAbsent(label, 0L);
+        pollInterval = MIN_POLL_INTERVAL;
+    }
+
+
+    /**
+     * Wait until the number of running tasks is less than given number.
+     * @param maxRunning maximum number of running tasks
+     * @throws Exception an exception
+     */
+    public void waitForSlot(int maxRunning) throws Exception
+    {
+        while(running.size() >= maxRunning)
+        {
+            sleep();
+            poll();
+        }
+    }
+
+
+    /**
+     * Wait for all tasks to complete.
+     * @throws Exception an exception
+     */
+    public void waitForAll() throws Exception
+    {
+        while(!running.isEmpty())
+        {
+            sleep();
+            poll();
+        }
+    }
+
+
+    /**
+     * Get number of processed (created, updated or deleted) documents by label.
+     * Only completed tasks are counted.
+     * @return key: label, value: number of documents
+     */
+    public Map<String, Long> getTotals()
+    {
+        return totals;
+    }
+
+
+    /**
+     * Get errors of failed tasks.
+     * @return list of error messages
+     */
+    public List<String> getErrors()
+    {
+        return errors;
+    }
+
+
+    private void sleep() throws InterruptedException
+    {
+        Thread.sleep(pollInterval);
+        pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL);
+    }
+    
+    
+    /**
+     * Update status of running tasks and print progress.
+     * @throws Exception an exception
+     */
+    private void poll() throws Exception
+    {
+        long numProcessed = 0;
+        long numTotal = 0;
+
+        Iterator<RunningTask> it = running.iterator();
+        while(it.hasNext())
+        {
+            RunningTask task = it.next();
+            task.status = dao.getTaskStatus(task.taskId);
+
+            if(task.status.completed)
+            {
+                it.remove();
+                numCompleted++;
+                totals.merge(task.label, task.status.getNumProcessed(), Long::sum);
+
+                if(task.status.error != null)
+                {
+                    String msg = "Task " + task.taskId + " (" + task.label + ") failed: " + task.status.error;
+                    Logger.error(msg);
+                    errors.add(msg);
+                }
+
+                // The result has been read. Don't accumulate results in the ".tasks" index.
+                dao.deleteTaskResult(task.taskId);
+            }
+            else
+            {
+                numProcessed += task.status.getNumProcessed();
+                numTotal += task.status.total;
+            }
+        }
+
+        if(!running.isEmpty())
+        {
+            Logger.info("Tasks: " + numCompleted + " completed, " + running.size() + " running. "
+                    + "Running tasks processed " + numProcessed + " of " + numTotal + " document(s)");
+        }
+    }
+}
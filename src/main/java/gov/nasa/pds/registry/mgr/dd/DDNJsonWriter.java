@@ -1,18 +1,30 @@
 package gov.nasa.pds.registry.mgr.dd;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
 import com.google.gson.stream.JsonWriter;
+
+import gov.nasa.pds.registry.mgr.dao.DataLoader;
 import gov.nasa.pds.registry.mgr.util.json.BaseNJsonWriter;
 
 
 /**
  * NJSON (new-line delimited JSON) writer for data dictionary records.
+ * Records are written either to a file or buffered in memory and then
+ * loaded into Elasticsearch by a {@link DataLoader.BulkWriter}
+ * (see {@link #writeTo(DataLoader.BulkWriter)}). Buffering lets callers
+ * validate the whole data dictionary before anything is loaded.
  * 
  * @author karpenko
  *
  */
 public class DDNJsonWriter extends BaseNJsonWriter<DDRecord>
 {
+    // Primary key and data lines of buffered records
+    private List<String> buffer;
+    
     /**
      * Constructor
      * @param file output file
@@ -24,6 +36,48 @@ public class DDNJsonWriter extends BaseNJsonWriter<DDRecord>
     }
 
     
+    /**
+     * Constructor. Records are buffered in memory.
+     */
+    public DDNJsonWriter()
+    {
+        buffer = new ArrayList<>();
+    }
+    
+    
+    @Override
+    protected void writeRecord(String pkLine, String dataLine) throws Exception
+    {
+        if(buffer == null)
+        {
+            super.writeRecord(pkLine, dataLine);
+        }
+        else
+        {
+            buffer.add(pkLine);
+            buffer.add(dataLine);
+        }
+    }
+
+    
+    /**
+     * Write buffered records to a bulk writer and clear the buffer.
+     * @param bulkWriter bulk writer
+     * @throws Exception an exception
+     */
+    public void writeTo(DataLoader.BulkWriter bulkWriter) throws Exception
+    {
+        if(buffer == null) throw new IllegalStateException("Records are not buffered");
+        
+        for(int i = 0; i < buffer.size(); i += 2)
+        {
+            bulkWriter.write(buffer.get(i), buffer.get(i + 1));
+        }
+        
+        buffer.clear();
+    }
+
+    
     /**
      * Write one data record.
      */
@@ -3,12 +3,15 @@ package gov.nasa.pds.registry.mgr.dd;
 import java.io.File;
 import java.util.Map;
 
+import gov.nasa.pds.registry.mgr.dao.DataLoader;
 import gov.nasa.pds.registry.mgr.dd.parser.DDAttribute;
 import gov.nasa.pds.registry.mgr.util.Logger;
 
 
 /**
  * Writes Elasticsearch JSON data file to be loaded into data dictionary index.
+ * Records can also be buffered in memory and loaded directly into the index
+ * without a data file (see {@link #LddEsJsonWriter(Pds2EsDataTypeMap)}).
  * 
  * @author karpenko
  */
@@ -20,8 +23,34 @@ public class LddEsJsonWriter
     private Pds2EsDataTypeMap dtMap;
     private Map<String, DDAttribute> ddAttrCache;
     private String nsFilter;
+    private int numRecords;
     
 
+    /**
+     * Constructor. Use this constructor if attribute definitions are passed to
+     * {@link #writeFieldDefinition(String, String, String, DDAttribute)}.
+     * @param outFile Elasticsearch JSON data file
+     * @param dtMap PDS to Elasticsearch data type map
+     * @throws Exception an exception
+     */
+    public LddEsJsonWriter(File outFile, Pds2EsDataTypeMap dtMap) throws Exception
+    {
+        this(outFile, dtMap, null);
+    }
+    
+    
+    /**
+     * Constructor. Records are buffered in memory. Call {@link #writeTo(DataLoader.BulkWriter)}
+     * to load buffered records into Elasticsearch.
+     * @param dtMap PDS to Elasticsearch data type map
+     */
+    public LddEsJsonWriter(Pds2EsDataTypeMap dtMap)
+    {
+        writer = new DDNJsonWriter();
+        this.dtMap = dtMap;
+    }
+    
+    
     /**
      * Constructor
      * @param outFile Elasticsearch JSON data file
@@ -47,6 +76,27 @@ public class LddEsJsonWriter
     }
     
     
+    /**
+     * Get number of written records.
+     * @return number of records
+     */
+    public int getNumRecords()
+    {
+        return numRecords;
+    }
+    
+    
+    /**
+     * Load buffered records into Elasticsearch.
+     * @param bulkWriter bulk writer
+     * @throws Exception an exception
+     */
+    public void writeTo(DataLoader.BulkWriter bulkWriter) throws Exception
+    {
+        writer.writeTo(bulkWriter);
+    }
+    
+    
     /**
      * Close output file
      * @throws Exception an exception
@@ -69,7 +119,23 @@ public class LddEsJsonWriter
         // Apply namespace filter
         if(nsFilter != null && !nsFilter.equals(classNs)) return;        
 
-        DDAttribute attr = ddAttrCache.get(attrId);
+        writeFieldDefinition(classNs, className, attrId, ddAttrCache.get(attrId));
+    }
+
+    
+    /**
+     * Write field definition (Elasticsearch field name, data type and other information)
+     * @param classNs LDD class namespace
+     * @param className LDD class name
+     * @param attrId LDD attribute ID
+     * @param attr LDD attribute definition or null if the attribute is missing in the LDD
+     * @throws Exception an exception
+     */
+    public void writeFieldDefinition(String classNs, String className, String attrId, DDAttribute attr) throws Exception
+    {
+        // Apply namespace filter
+        if(nsFilter != null && !nsFilter.equals(classNs)) return;        
+
         if(attr == null)
         {
             Logger.warn("Missing attribute " + attrId);
@@ -104,6 +170,7 @@ public class LddEsJsonWriter
         rec.date = LddUtils.lddDateToIsoInstant(date);
         
         writer.write(rec.esFieldNameFromComponents(), rec);
+        numRecords++;
     }
     
     
@@ -122,12 +189,14 @@ public class LddEsJsonWriter
 
         // Write
         writer.write(ddRec.esFieldNameFromComponents(), ddRec);
+        numRecords++;
     
         // Fix wrong attribute namespace
         if(!classNs.equals(dda.attrNs))
         {
             ddRec.attrNs = classNs;
             writer.write(ddRec.esFieldNameFromComponents(), ddRec);
+            numRecords++;
         }
     }
         
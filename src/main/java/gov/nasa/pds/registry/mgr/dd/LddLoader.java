@@ -1,15 +1,17 @@
 package gov.nasa.pds.registry.mgr.dd;
 
 import java.io.File;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import gov.nasa.pds.registry.mgr.dao.DataLoader;
-import gov.nasa.pds.registry.mgr.dd.parser.AttributeDictionaryParser;
-import gov.nasa.pds.registry.mgr.dd.parser.ClassAttrAssociationParser;
-import gov.nasa.pds.registry.mgr.dd.parser.DDAttribute;
+import gov.nasa.pds.registry.mgr.dd.parser.LddParser;
+import gov.nasa.pds.registry.mgr.util.CloseUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
 
 
@@ -20,11 +22,51 @@ import gov.nasa.pds.registry.mgr.util.Logger;
  */
 public class LddLoader
 {
+    /**
+     * Load status of one PDS LDD JSON file
+     */
+    public static class LoadStatus
+    {
+        /**
+         * PDS LDD JSON file
+         */
+        public File file;
+        
+        /**
+         * LDD namespace
+         */
+        public String namespace;
+        
+        /**
+         * LDD version
+         */
+        public String version;
+        
+        /**
+         * Number of data dictionary records
+         */
+        public int numRecords;
+        
+        /**
+         * Error or null if the LDD was loaded
+         */
+        public Exception error;
+        
+        /**
+         * Constructor
+         * @param file PDS LDD JSON file
+         */
+        public LoadStatus(File file)
+        {
+            this.file = file;
+        }
+    }
+    
+    
     private String esUrl = "http://localhost:9200";
     private String esIndexName = "registry-dd";
     private String esAuthFilePath;
 
-    private File tempDir;
     private Pds2EsDataTypeMap dtMap;
     
     
@@ -33,7 +75,6 @@ public class LddLoader
      */
     public LddLoader()
     {
-        tempDir = new File(System.getProperty("java.io.tmpdir"));
         dtMap = new Pds2EsDataTypeMap();
     }
  
@@ -73,19 +114,121 @@ public class LddLoader
      */
     public void load(File ddFile, String namespace) throws Exception
     {
-        File tempEsDataFile = new File(tempDir, "pds-registry-dd.tmp.json");
-        Logger.info("Creating temporary ES data file " + tempEsDataFile.getAbsolutePath());
-        createEsDataFile(ddFile, namespace, tempEsDataFile);
-
-        // Load temporary file into data dictionary index
+        // Parse and validate the whole LDD before loading anything
+        LddEsJsonWriter writer = new LddEsJsonWriter(dtMap);
+        writeEsData(ddFile, namespace, writer, new LoadStatus(ddFile));
+        
         DataLoader loader = new DataLoader(esUrl, esIndexName, esAuthFilePath);
-        loader.loadFile(tempEsDataFile);
+        DataLoader.BulkWriter bulkWriter = loader.openBulkWriter();
         
-        // Delete temporary file
-        tempEsDataFile.delete();
+        try
+        {
+            writer.writeTo(bulkWriter);
+            bulkWriter.finish();
+        }
+        finally
+        {
+            CloseUtils.close(bulkWriter);
+        }
     }
 
     
+    /**
+     * Load several PDS LDD JSON files into Elasticsearch data dictionary index.
+     * LDD files are parsed concurrently by a pool of worker threads. All parsed
+     * records are loaded by one shared bulk writer. Records of an LDD file are only
+     * loaded after the whole file was parsed, so a file with errors is not loaded 
+     * at all. An error in one LDD file doesn't stop loading of other files. Namespace of each LDD is determined 
+     * from the LDD (each file should have one namespace).
+     * @param ddFiles PDS LDD JSON files
+     * @param numThreads number of LDD files to parse concurrently. 
+     * Also used as the number of concurrent "_bulk" requests.
+     * @return load status of each file (in the same order as files)
+     * @throws Exception an exception. Thrown if the records could not be loaded into Elasticsearch.
+     */
+    public List<LoadStatus> load(List<File> ddFiles, int numThreads) throws Exception
+    {
+        return load(ddFiles, null, numThreads);
+    }
+    
+    
+    /**
+     * Load several PDS LDD JSON files into Elasticsearch data dictionary index.
+     * Same as {@link #load(List, int)}, but a namespace filter can be set for each file.
+     * @param ddFiles PDS LDD JSON files
+     * @param namespaces Namespace filter of each file (in the same order as files).
+     * Only load classes having this namespace. If null or if an item is null, 
+     * the namespace is determined from the LDD.
+     * @param numThreads number of LDD files to parse concurrently. 
+     * Also used as the number of concurrent "_bulk" requests.
+     * @return load status of each file (in the same order as files)
+     * @throws Exception an exception. Thrown if the records could not be loaded into Elasticsearch.
+     */
+    public List<LoadStatus> load(List<File> ddFiles, List<String> namespaces, int numThreads) throws Exception
+    {
+        List<LoadStatus> statusList = new ArrayList<>(ddFiles.size());
+        
+        DataLoader loader = new DataLoader(esUrl, esIndexName, esAuthFilePath);
+        loader.setNumThreads(numThreads);
+        DataLoader.BulkWriter bulkWriter = loader.openBulkWriter();
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>(ddFiles.size());
+            
+            for(int i = 0; i < ddFiles.size(); i++)
+            {
+                LoadStatus status = new LoadStatus(ddFiles.get(i));
+                status.namespace = (namespaces == null) ? null : namespaces.get(i);
+                statusList.add(status);
+                futures.add(pool.submit(() -> parseLdd(bulkWriter, status)));
+            }
+            
+            for(Future<?> future: futures)
+            {
+                future.get();
+            }
+            
+            bulkWriter.finish();
+        }
+        finally
+        {
+            pool.shutdownNow();
+            CloseUtils.close(bulkWriter);
+        }
+        
+        return statusList;
+    }
+    
+    
+    /**
+     * Parse one LDD file and write its records to a shared bulk writer.
+     * Records are buffered until the whole file is parsed and validated.
+     * Namespace from the load status (if set) is used as a namespace filter.
+     * Errors are saved in the load status.
+     * @param bulkWriter shared bulk writer
+     * @param status load status
+     */
+    private void parseLdd(DataLoader.BulkWriter bulkWriter, LoadStatus status)
+    {
+        Logger.info("Loading " + status.file.getAbsolutePath());
+        
+        try
+        {
+            LddEsJsonWriter writer = new LddEsJsonWriter(dtMap);
+            writeEsData(status.file, status.namespace, writer, status);
+        
+            writer.writeTo(bulkWriter);
+        }
+        catch(Exception ex)
+        {
+            Logger.error("Could not load " + status.file.getAbsolutePath() + ": " + ex.getMessage());
+            status.error = ex;
+        }
+    }
+    
+    
     /**
      * Create Elasticsearch data file to be loaded into data dictionary index.
      * @param ddFile PDS LDD JSON file
@@ -95,24 +238,39 @@ public class LddLoader
      */
     public void createEsDataFile(File ddFile, String namespace, File esFile) throws Exception
     {
-        // Parse and cache LDD attributes
-        Map<String, DDAttribute> ddAttrCache = new TreeMap<>();
-        AttributeDictionaryParser attrParser = new AttributeDictionaryParser(ddFile, 
-                (attr) -> { ddAttrCache.put(attr.id, attr); } );
-        attrParser.parse();
-
-        // Create a writer to save LDD data in Elasticsearch JSON data file
-        LddEsJsonWriter writer = new LddEsJsonWriter(esFile, dtMap, ddAttrCache);
+        LddEsJsonWriter writer = new LddEsJsonWriter(esFile, dtMap);
+        
+        try
+        {
+            writeEsData(ddFile, namespace, writer, new LoadStatus(ddFile));
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+    
+    
+    /**
+     * Parse PDS LDD JSON file and write Elasticsearch data dictionary records.
+     * @param ddFile PDS LDD JSON file
+     * @param namespace Namespace filter. Only load classes having this namespace.
+     * @param writer Elasticsearch data dictionary record writer
+     * @param status LDD namespace, version and number of records are saved in this object
+     * @throws Exception an exception
+     */
+    private void writeEsData(File ddFile, String namespace, LddEsJsonWriter writer, LoadStatus status) throws Exception
+    {
         writer.setNamespaceFilter(namespace);
         
-        // Parse class attribute associations and write to ES data file
+        // Parse LDD in one pass and write class attribute associations
         Set<String> namespaces = new TreeSet<>();
-        ClassAttrAssociationParser caaParser = new ClassAttrAssociationParser(ddFile, 
-                (classNs, className, attrId) -> { 
-                    writer.writeFieldDefinition(classNs, className, attrId);
+        LddParser parser = new LddParser(ddFile, 
+                (classNs, className, attrId, attr) -> { 
+                    writer.writeFieldDefinition(classNs, className, attrId, attr);
                     namespaces.add(classNs);
         });
-        caaParser.parse();
+        parser.parse();
 
         // Determine LDD namespace
         if(namespace == null)
@@ -128,7 +286,10 @@ public class LddLoader
         }
         
         // Write data dictionary version and date
-        writer.writeDataDictionaryVersion(namespace, attrParser.getLddVersion(), attrParser.getLddDate());
-        writer.close();
+        writer.writeDataDictionaryVersion(namespace, parser.getLddVersion(), parser.getLddDate());
+        
+        status.namespace = namespace;
+        status.version = parser.getLddVersion();
+        status.numRecords = writer.getNumRecords();
     }
 }
@@ -23,7 +23,9 @@ import gov.nasa.pds.registry.mgr.util.Logger;
  */
 public class LddUtils
 {
-    private static final DateFormat LDD_DateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+    // SimpleDateFormat is not thread-safe. LDD files are parsed concurrently.
+    private static final ThreadLocal<DateFormat> LDD_DateFormat = ThreadLocal.withInitial(
+            () -> new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US));
     
     
     /**
@@ -54,7 +56,7 @@ public class LddUtils
      */
     public static String lddDateToIsoInstant(String lddDate) throws Exception
     {
-        Date dt = LDD_DateFormat.parse(lddDate);
+        Date dt = LDD_DateFormat.get().parse(lddDate);
         return DateTimeFormatter.ISO_INSTANT.format(dt.toInstant());
     }
     
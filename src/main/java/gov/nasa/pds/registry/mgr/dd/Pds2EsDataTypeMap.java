@@ -3,8 +3,8 @@ package gov.nasa.pds.registry.mgr.dd;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import gov.nasa.pds.registry.mgr.util.CloseUtils;
 import gov.nasa.pds.registry.mgr.util.Logger;
@@ -21,6 +21,8 @@ import gov.nasa.pds.registry.mgr.util.Logger;
  * <p>Default configuration file is in 
  * &lt;PROJECT_ROOT&gt;/src/main/resources/elastic/data-dic-types.cfg
  * 
+ * <p>This class is thread-safe. The same map is used by concurrent LDD parsers.
+ * 
  * @author karpenko
  */
 public class Pds2EsDataTypeMap
@@ -32,7 +34,7 @@ public class Pds2EsDataTypeMap
      */
     public Pds2EsDataTypeMap()
     {
-        map = new HashMap<>();
+        map = new ConcurrentHashMap<>();
     }
 
     
@@ -43,15 +45,13 @@ public class Pds2EsDataTypeMap
      */
     public String getEsDataType(String pdsType)
     {
-        String esType = map.get(pdsType);
-        if(esType != null) return esType;
-        
-        esType = guessEsDataType(pdsType);
-        Logger.warn("No PDS to Elasticsearch data type mapping for '" + pdsType 
-                + "'. Will use '" + esType + "'");
-
-        map.put(pdsType, esType);
-        return esType;
+        return map.computeIfAbsent(pdsType, key -> 
+        {
+            String esType = guessEsDataType(key);
+            Logger.warn("No PDS to Elasticsearch data type mapping for '" + key 
+                    + "'. Will use '" + esType + "'");
+            return esType;
+        });
     }
     
     
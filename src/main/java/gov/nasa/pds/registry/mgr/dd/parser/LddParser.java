@@ -0,0 +1,371 @@
+package gov.nasa.pds.registry.mgr.dd.parser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonToken;
+
+import gov.nasa.pds.registry.mgr.util.Logger;
+
+
+/**
+ * Single-pass PDS LDD JSON file parser.
+ * Parses both "dataDictionary" -&gt; "classDictionary" and "dataDictionary" -&gt; "attributeDictionary"
+ * subtrees in one pass and resolves class attribute associations
+ * ("class" -&gt; "association" -&gt; "isAttribute" == true) to attribute definitions.
+ *
+ * <p>Classes and attributes can come in any order. An association is reported
+ * as soon as both the class and the attribute are parsed. Only associations
+ * to attributes which were not parsed yet are buffered. Attributes are cached
+ * only while there are still classes to parse.
+ *
+ * @author karpenko
+ */
+public class LddParser extends BaseLddParser
+{
+    /**
+     * Callback interface
+     * @author karpenko
+     */
+    public static interface Callback
+    {
+        /**
+         * This method is called for each "attributeId" from class attribute association
+         * ("class" -&gt; "association" -&gt; "isAttribute" == true).
+         * @param classNs class namespace
+         * @param className class name
+         * @param attrId attribute ID
+         * @param attr attribute definition or null if the LDD doesn't have this attribute
+         * @throws Exception an exception
+         */
+        public void onAssociation(String classNs, String className, String attrId, DDAttribute attr) throws Exception;
+    }
+
+
+    /**
+     * A class having associations to attributes not parsed yet.
+     */
+    private static class ClassRef
+    {
+        public String classNs;
+        public String className;
+
+        public ClassRef(String classNs, String className)
+        {
+            this.classNs = classNs;
+            this.className = className;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////
+
+    private Callback cb;
+    private int classCount;
+    private int attrCount;
+
+    private boolean classDicParsed;
+
+    // Attributes parsed before class dictionary
+    private Map<String, DDAttribute> attrCache = new HashMap<>();
+    // Unresolved associations: attribute ID -> classes
+    private Map<String, List<ClassRef>> pending = new HashMap<>();
+
+    private ClassRef curClass;
+    private List<String> curAttrIds = new ArrayList<>();
+
+
+    /**
+     * Constructor
+     * @param file PDS LDD JSON file
+     * @param cb Callback
+     * @throws Exception an exception
+     */
+    public LddParser(File file, Callback cb) throws Exception
+    {
+        super(file);
+        this.cb = cb;
+    }
+
+
+    @Override
+    public void parse() throws Exception
+    {
+        super.parse();
+
+        // Associations to attributes missing in the LDD
+        for(Map.Entry<String, List<ClassRef>> entry: pending.entrySet())
+        {
+            for(ClassRef ref: entry.getValue())
+            {
+                cb.onAssociation(ref.classNs, ref.className, entry.getKey(), null);
+            }
+        }
+
+        pending.clear();
+        attrCache.clear();
+    }
+
+
+    @Override
+    protected void parseClassDictionary() throws Exception
+    {
+        Logger.debug("Parsing class dictionary from " + ddFile.getAbsolutePath());
+
+        jsonReader.beginArray();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_ARRAY)
+        {
+            jsonReader.beginObject();
+
+            while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_OBJECT)
+            {
+                String name = jsonReader.nextName();
+                if("class".equals(name))
+                {
+                    parseClass();
+                }
+                else
+                {
+                    jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+        }
+
+        jsonReader.endArray();
+
+        // Attributes parsed after this point are not needed to resolve associations later.
+        classDicParsed = true;
+        attrCache.clear();
+    }
+
+
+    @Override
+    protected void parseAttributeDictionary() throws Exception
+    {
+        Logger.debug("Parsing attribute dictionary from " + ddFile.getAbsolutePath());
+
+        jsonReader.beginArray();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_ARRAY)
+        {
+            jsonReader.beginObject();
+
+            while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_OBJECT)
+            {
+                String name = jsonReader.nextName();
+                if("attribute".equals(name))
+                {
+                    parseAttr();
+                }
+                else
+                {
+                    jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+        }
+
+        jsonReader.endArray();
+    }
+
+
+    private void parseClass() throws Exception
+    {
+        classCount++;
+        curClass = null;
+        curAttrIds.clear();
+
+        jsonReader.beginObject();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_OBJECT)
+        {
+            String name = jsonReader.nextName();
+            if("identifier".equals(name))
+            {
+                String id = jsonReader.nextString();
+
+                String tokens[] = id.split("\\.");
+                if(tokens.length != 3) throw new Exception("Could not parse class id " + id);
+
+                curClass = new ClassRef(tokens[1], tokens[2]);
+            }
+            else if("associationList".equals(name))
+            {
+                parseAssocList();
+            }
+            else
+            {
+                jsonReader.skipValue();
+            }
+        }
+
+        jsonReader.endObject();
+
+        if(curClass == null)
+        {
+            String msg = "Missing identifier in class definition. Index = " + classCount;
+            throw new Exception(msg);
+        }
+
+        // Class identifier could come after the association list
+        for(String attrId: curAttrIds)
+        {
+            DDAttribute attr = attrCache.get(attrId);
+            if(attr != null)
+            {
+                cb.onAssociation(curClass.classNs, curClass.className, attrId, attr);
+            }
+            else
+            {
+                pending.computeIfAbsent(attrId, k -> new ArrayList<>(1)).add(curClass);
+            }
+        }
+    }
+
+
+    private void parseAssocList() throws Exception
+    {
+        jsonReader.beginArray();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_ARRAY)
+        {
+            jsonReader.beginObject();
+
+            while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_OBJECT)
+            {
+                String name = jsonReader.nextName();
+                if("association".equals(name))
+                {
+                    parseAssoc();
+                }
+                else
+                {
+                    jsonReader.skipValue();
+                }
+            }
+
+            jsonReader.endObject();
+        }
+
+        jsonReader.endArray();
+    }
+
+
+    private void parseAssoc() throws Exception
+    {
+        boolean isAttribute = false;
+
+        jsonReader.beginObject();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_OBJECT)
+        {
+            String name = jsonReader.nextName();
+            if("isAttribute".equals(name))
+            {
+                String val = jsonReader.nextString();
+                if("true".equals(val))
+                {
+                    isAttribute = true;
+                }
+            }
+            else if("attributeId".equals(name) && isAttribute)
+            {
+                parseAttributeIds();
+            }
+            else
+            {
+                jsonReader.skipValue();
+            }
+        }
+
+        jsonReader.endObject();
+    }
+
+
+    private void parseAttributeIds() throws Exception
+    {
+        jsonReader.beginArray();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_ARRAY)
+        {
+            curAttrIds.add(jsonReader.nextString());
+        }
+
+        jsonReader.endArray();
+    }
+
+
+    private void parseAttr() throws Exception
+    {
+        attrCount++;
+
+        DDAttribute attr = new DDAttribute();
+
+        jsonReader.beginObject();
+
+        while(jsonReader.hasNext() && jsonReader.peek() != JsonToken.END_OBJECT)
+        {
+            String name = jsonReader.nextName();
+            if("identifier".equals(name))
+            {
+                attr.id = jsonReader.nextString();
+                String tokens[] = attr.id.split("\\.");
+                if(tokens.length != 5) throw new Exception("Could not parse attribute id " + attr.id);
+
+                attr.classNs = tokens[1];
+                attr.className = tokens[2];
+                attr.attrNs = tokens[3];
+                attr.attrName = tokens[4];
+            }
+            else if("dataType".equals(name))
+            {
+                attr.dataType = jsonReader.nextString();
+            }
+            else if("description".equals(name))
+            {
+                attr.description = jsonReader.nextString();
+            }
+            else
+            {
+                jsonReader.skipValue();
+            }
+        }
+
+        jsonReader.endObject();
+
+        if(attr.id == null)
+        {
+            String msg = "Missing identifier in attribute definition. Index = " + attrCount;
+            throw new Exception(msg);
+        }
+
+        if(attr.dataType == null)
+        {
+            String msg = "Missing dataType in attribute definition " + attr.id;
+            throw new Exception(msg);
+        }
+
+        // Resolve buffered associations
+        List<ClassRef> refs = pending.remove(attr.id);
+        if(refs != null)
+        {
+            for(ClassRef ref: refs)
+            {
+                cb.onAssociation(ref.classNs, ref.className, attr.id, attr);
+            }
+        }
+
+        // Cache the attribute for classes not parsed yet
+        if(!classDicParsed)
+        {
+            attrCache.put(attr.id, attr);
+        }
+    }
+
+}
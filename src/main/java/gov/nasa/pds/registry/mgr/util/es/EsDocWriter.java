@@ -2,14 +2,12 @@ package gov.nasa.pds.registry.mgr.util.es;
 
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
-import com.google.gson.Gson;
-import com.google.gson.stream.JsonWriter;
-
-import gov.nasa.pds.registry.common.es.client.SearchResponseParser;
+import gov.nasa.pds.registry.mgr.util.file.PartFileOutputStream;
 
 /**
  * <p>
@@ -17,21 +15,34 @@ import gov.nasa.pds.registry.common.es.client.SearchResponseParser;
  * Writes documents in "new-line-delimited JSON" format. (Content-Type: application/x-ndjson).
  * </p>
  * <p>
- * Generated file can be loaded into Elasticsearch by "_bulk" web service API: 
+ * Generated file can be loaded into Elasticsearch by "_bulk" web service API:
  * </p>
  * <pre>
  * curl -H "Content-Type: application/x-ndjson" \
  *      -XPOST "http://localhost:9200/accounts/_bulk?pretty" \
  *      --data-binary @es-docs.json
  * </pre>
- * 
+ * <p>
+ * Documents are written as raw UTF-8 bytes. The action (primary key) line
+ * is built from a preallocated template and a raw JSON string with document ID.
+ * Document content is copied by the caller directly into the output stream.
+ * </p>
+ * <p>
+ * Output can be gzip-compressed and split into several part files.
+ * A file is only split between records, so every part can be loaded separately.
+ * </p>
+ *
  * @author karpenko
  */
-public class EsDocWriter implements Closeable, SearchResponseParser.Callback
+public class EsDocWriter implements Closeable
 {
-    private FileWriter writer;
-    private Gson gson;
-    
+    // Action line template: {"index":{"_id":<ID>}}
+    private static final byte[] ACTION_PREFIX = "{\"index\":{\"_id\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ACTION_SUFFIX = "}}\n".getBytes(StandardCharsets.UTF_8);
+
+    private PartFileOutputStream os;
+
+
     /**
      * Constructor
      * @param file output file
@@ -39,66 +50,76 @@ public class EsDocWriter implements Closeable, SearchResponseParser.Callback
      */
     public EsDocWriter(File file) throws IOException
     {
-        writer = new FileWriter(file);
-        gson = new Gson();
+        this(file, false, 0);
     }
 
-    
+
+    /**
+     * Constructor
+     * @param file output file
+     * @param gzip compress output with gzip (".gz" extension is added to file names)
+     * @param maxPartSize maximum size of a part file in bytes. If 0, output is not split.
+     * @throws IOException an exception
+     */
+    public EsDocWriter(File file, boolean gzip, long maxPartSize) throws IOException
+    {
+        os = new PartFileOutputStream(file, gzip, maxPartSize);
+    }
+
+
     /**
      * Close file
      */
     @Override
     public void close() throws IOException
     {
-        writer.close();
+        os.close();
     }
 
 
     /**
-     * Search response parser callback implementation.
-     * This method is called for every record.
+     * Write action (primary key) line: {"index":{"_id":"..."}}
+     * @param id document ID as a raw JSON string, including quotes and escape sequences
+     * @param off offset in the buffer
+     * @param len length of the ID
+     * @throws IOException an exception
      */
-    @Override
-    public void onRecord(String id, Object rec) throws IOException
+    public void writeActionLine(byte[] id, int off, int len) throws IOException
     {
-        // 1st line: ID
-        writePK(id);
-        newLine();
-
-        // 2nd line: data
-        gson.toJson(rec, writer);
-        newLine();
+        os.write(ACTION_PREFIX);
+        os.write(id, off, len);
+        os.write(ACTION_SUFFIX);
     }
 
 
-    private void newLine() throws IOException
+    /**
+     * Get output stream to write document content (data line).
+     * Content should be a single line of JSON. Call {@link #endRecord()} after writing the content.
+     * @return output stream
+     */
+    public OutputStream getDataStream()
     {
-        writer.write("\n");
+        return os;
     }
 
-    
+
     /**
-     * Write index primary key
-     * @param id primary key
+     * End current record (write new-line character after data line).
      * @throws IOException an exception
      */
-    private void writePK(String id) throws IOException
+    public void endRecord() throws IOException
     {
-        StringWriter sw = new StringWriter();
-        JsonWriter jw = new JsonWriter(sw);
-        
-        jw.beginObject();
-        
-        jw.name("index");
-        jw.beginObject();
-        jw.name("_id").value(id);
-        jw.endObject();
-        
-        jw.endObject();
-        
-        jw.close();
-        
-        writer.write(sw.getBuffer().toString());
+        os.write('\n');
+        os.rollOverIfNeeded();
     }
 
+
+    /**
+     * Get all files created by this writer.
+     * @return list of files
+     */
+    public List<File> getFiles()
+    {
+        return os.getFiles();
+    }
 }
@@ -1,6 +1,8 @@
 package gov.nasa.pds.registry.mgr.util.es;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 import com.google.gson.stream.JsonWriter;
 
@@ -38,6 +40,50 @@ public class EsQueryUtils
     }
 
     
+    /**
+     * Append "_source" filter. Nothing is appended if both lists are empty, 
+     * i.e., all fields are returned.
+     * @param writer JSON writer
+     * @param includes fields to return. Wildcards are supported. Can be null.
+     * @param excludes fields to exclude. Wildcards are supported. Can be null.
+     * @throws IOException an exception
+     */
+    public static void appendSourceFilter(JsonWriter writer, List<String> includes, List<String> excludes) throws IOException
+    {
+        boolean hasIncludes = (includes != null && !includes.isEmpty());
+        boolean hasExcludes = (excludes != null && !excludes.isEmpty());
+        if(!hasIncludes && !hasExcludes) return;
+        
+        writer.name("_source");
+        writer.beginObject();
+        
+        if(hasIncludes)
+        {
+            writer.name("includes");
+            appendStringArray(writer, includes);
+        }
+        
+        if(hasExcludes)
+        {
+            writer.name("excludes");
+            appendStringArray(writer, excludes);
+        }
+        
+        writer.endObject();
+    }
+    
+    
+    private static void appendStringArray(JsonWriter writer, List<String> values) throws IOException
+    {
+        writer.beginArray();
+        for(String value: values)
+        {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+    
+    
     /**
      * Append filter query
      * @param writer JSON writer
@@ -60,6 +106,41 @@ public class EsQueryUtils
     }
     
     
+    /**
+     * Append terms filter query. Matches documents having any of the values.
+     * @param writer JSON writer
+     * @param field field name
+     * @param values field values
+     * @throws IOException an exception
+     */
+    public static void appendTermsFilterQuery(JsonWriter writer, String field, Collection<String> values) throws IOException
+    {
+        writer.name("query");
+        writer.beginObject();
+
+        writer.name("bool");
+        writer.beginObject();
+        
+        writer.name("filter");
+        writer.beginObject();
+        writer.name("terms");
+        writer.beginObject();
+        writer.name(field);
+        writer.beginArray();
+        for(String value: values)
+        {
+            writer.value(value);
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.endObject();
+        
+        writer.endObject();
+
+        writer.endObject();
+    }
+    
+    
     /**
      * Append must match all criterion
      * @param writer JSON writer
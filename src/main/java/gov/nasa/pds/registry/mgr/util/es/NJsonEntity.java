@@ -0,0 +1,234 @@
+package gov.nasa.pds.registry.mgr.util.es;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import gov.nasa.pds.registry.mgr.util.file.ByteBufferUtils;
+import gov.nasa.pds.registry.mgr.util.file.GzipCompressingInputStream;
+
+/**
+ * Repeatable HTTP entity to post NJSON (new-line-delimited JSON) data 
+ * to Elasticsearch "_bulk" API. (Content-Type: application/x-ndjson).
+ * 
+ * <p>The entity streams lines directly from memory (heap or memory-mapped 
+ * buffers). A new-line character is added after each line. Request body is not copied into a separate buffer, 
+ * so the same entity can be sent several times (e.g., retried) without 
+ * extra memory allocation.
+ * 
+ * <p>If compression is enabled, the body is gzip-compressed on the fly 
+ * while it is being sent (Content-Encoding: gzip, chunked transfer encoding).
+ * 
+ * @author karpenko
+ */
+public class NJsonEntity extends AbstractHttpEntity
+{
+    private List<ByteBuffer> lines;
+    private long contentLength;
+    private int compressionLevel;
+    private volatile long compressedLength = -1;
+    
+    
+    /**
+     * Constructor
+     * @param lines NJSON lines (UTF-8 bytes without new-line characters). 
+     * Buffer positions are not changed by this class.
+     * @param contentLength total size of all lines in bytes including new-line characters
+     */
+    public NJsonEntity(List<ByteBuffer> lines, long contentLength)
+    {
+        this.lines = lines;
+        this.contentLength = contentLength;
+        setContentType("application/x-ndjson");
+    }
+
+    
+    /**
+     * Enable gzip compression.
+     * @param level compression level (1 - fastest, 9 - best compression). 
+     * 0 disables compression.
+     */
+    public void setCompressionLevel(int level)
+    {
+        this.compressionLevel = level;
+        
+        if(level > 0)
+        {
+            setContentEncoding("gzip");
+            setChunked(true);
+        }
+        else
+        {
+            setContentEncoding(null);
+            setChunked(false);
+        }
+    }
+    
+    
+    /**
+     * Get uncompressed content length.
+     * @return number of bytes
+     */
+    public long getRawContentLength()
+    {
+        return contentLength;
+    }
+    
+    
+    /**
+     * Get compressed content length of the last time this entity was sent.
+     * @return number of bytes or -1 if compression is disabled or 
+     * the entity was not sent yet.
+     */
+    public long getCompressedLength()
+    {
+        return compressedLength;
+    }
+    
+    
+    @Override
+    public boolean isRepeatable()
+    {
+        return true;
+    }
+
+    
+    @Override
+    public long getContentLength()
+    {
+        // Compressed length is not known in advance
+        return (compressionLevel > 0) ? -1 : contentLength;
+    }
+
+    
+    @Override
+    public InputStream getContent() throws IOException
+    {
+        if(compressionLevel > 0)
+        {
+            return new CountingGzipStream();
+        }
+        
+        return new LinesInputStream();
+    }
+
+    
+    @Override
+    public void writeTo(OutputStream os) throws IOException
+    {
+        if(compressionLevel > 0)
+        {
+            try(InputStream is = getContent())
+            {
+                is.transferTo(os);
+            }
+            
+            os.flush();
+            return;
+        }
+        
+        for(ByteBuffer line: lines)
+        {
+            ByteBufferUtils.write(os, line);
+            os.write('\n');
+        }
+        
+        os.flush();
+    }
+
+    
+    @Override
+    public boolean isStreaming()
+    {
+        return false;
+    }
+    
+    
+    /**
+     * Gzip-compressed input stream over the list of lines. 
+     * Saves compressed length when all data is read.
+     */
+    private class CountingGzipStream extends GzipCompressingInputStream
+    {
+        public CountingGzipStream()
+        {
+            super(new LinesInputStream(), compressionLevel);
+            compressedLength = -1;
+        }
+        
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException
+        {
+            int n = super.read(buf, off, len);
+            if(n < 0) compressedLength = getNumBytesOut();
+            return n;
+        }
+    }
+    
+    
+    /**
+     * Input stream over the list of lines. Adds a new-line character after each line.
+     */
+    private class LinesInputStream extends InputStream
+    {
+        private int lineIdx = 0;
+        // Remaining bytes of current line. No remaining bytes means new-line character.
+        private ByteBuffer line;
+        
+        private ByteBuffer currentLine()
+        {
+            if(line == null) line = lines.get(lineIdx).duplicate();
+            return line;
+        }
+        
+        private void nextLine()
+        {
+            lineIdx++;
+            line = null;
+        }
+        
+        @Override
+        public int read() throws IOException
+        {
+            if(lineIdx >= lines.size()) return -1;
+            
+            ByteBuffer buf = currentLine();
+            if(buf.hasRemaining()) return buf.get() & 0xFF;
+            
+            // End of line
+            nextLine();
+            return '\n';
+        }
+        
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException
+        {
+            if(len == 0) return 0;
+            if(lineIdx >= lines.size()) return -1;
+            
+            int count = 0;
+            while(count < len && lineIdx < lines.size())
+            {
+                ByteBuffer src = currentLine();
+                if(src.hasRemaining())
+                {
+                    int n = Math.min(len - count, src.remaining());
+                    src.get(buf, off + count, n);
+                    count += n;
+                }
+                else
+                {
+                    buf[off + count] = '\n';
+                    count++;
+                    nextLine();
+                }
+            }
+            
+            return count;
+        }
+    }
+}
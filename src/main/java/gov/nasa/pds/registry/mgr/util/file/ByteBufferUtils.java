@@ -0,0 +1,42 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Byte buffer utilities.
+ * 
+ * @author karpenko
+ */
+public class ByteBufferUtils
+{
+    private static final int COPY_BUF_SIZE = 8192;
+    
+    /**
+     * Write remaining bytes of a buffer to an output stream. 
+     * Buffer's position is not changed. Heap buffers are written directly.
+     * Direct (e.g., memory-mapped) buffers are copied in small chunks.
+     * @param os output stream
+     * @param buf byte buffer
+     * @throws IOException an exception
+     */
+    public static void write(OutputStream os, ByteBuffer buf) throws IOException
+    {
+        if(buf.hasArray())
+        {
+            os.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+            return;
+        }
+        
+        ByteBuffer src = buf.duplicate();
+        byte[] tmp = new byte[Math.min(src.remaining(), COPY_BUF_SIZE)];
+        while(src.hasRemaining())
+        {
+            int len = Math.min(src.remaining(), tmp.length);
+            src.get(tmp, 0, len);
+            os.write(tmp, 0, len);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Reads lines from an input stream as raw bytes. 
+ * Unlike BufferedReader, bytes are not decoded into Java strings.
+ * Each line is returned as a heap buffer wrapping a new byte array.
+ * See {@link MappedLineReader} for a reader which does not copy bytes.
+ *  
+ * @author karpenko
+ */
+public class ByteLineReader implements LineReader
+{
+    private static final int BUF_SIZE = 64 * 1024;
+    
+    private InputStream is;
+    private byte[] buf = new byte[BUF_SIZE];
+    private int bufPos;
+    private int bufLen;
+    
+    private long offset;
+    
+    
+    /**
+     * Constructor
+     * @param is input stream
+     */
+    public ByteLineReader(InputStream is)
+    {
+        this(is, 0);
+    }
+
+    
+    /**
+     * Constructor
+     * @param is input stream
+     * @param startOffset Byte offset of the input stream's current position 
+     * in the underlying file. Used to report line offsets when reading 
+     * is resumed from the middle of a file.
+     */
+    public ByteLineReader(InputStream is, long startOffset)
+    {
+        this.is = is;
+        this.offset = startOffset;
+    }
+    
+    
+    @Override
+    public ByteBuffer readLine() throws IOException
+    {
+        byte[] line = null;
+        int lineLen = 0;
+        
+        while(true)
+        {
+            if(bufPos >= bufLen)
+            {
+                bufLen = is.read(buf);
+                bufPos = 0;
+                
+                // End of stream
+                if(bufLen <= 0)
+                {
+                    bufLen = 0;
+                    if(line == null) return null;
+                    return trimCR(line, lineLen);
+                }
+            }
+            
+            // Find end of line
+            int start = bufPos;
+            while(bufPos < bufLen && buf[bufPos] != '\n') bufPos++;
+            
+            int len = bufPos - start;
+            boolean eol = (bufPos < bufLen);
+            
+            // Append to line
+            if(line == null)
+            {
+                line = new byte[eol ? len : Math.max(len * 2, 256)];
+            }
+            else if(lineLen + len > line.length)
+            {
+                line = Arrays.copyOf(line, Math.max((lineLen + len) * 2, line.length * 2));
+            }
+            
+            System.arraycopy(buf, start, line, lineLen, len);
+            lineLen += len;
+            offset += len;
+            
+            if(eol)
+            {
+                // Skip '\n'
+                bufPos++;
+                offset++;
+                return trimCR(line, lineLen);
+            }
+        }
+    }
+    
+    
+    @Override
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    
+    @Override
+    public void close() throws IOException
+    {
+        is.close();
+    }
+    
+    
+    private static ByteBuffer trimCR(byte[] line, int len)
+    {
+        if(len > 0 && line[len-1] == '\r') len--;
+        return ByteBuffer.wrap(line, 0, len);
+    }
+}
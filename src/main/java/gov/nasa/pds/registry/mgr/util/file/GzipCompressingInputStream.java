@@ -0,0 +1,150 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Compresses another input stream on the fly. Reading from this stream
+ * returns data in gzip format (RFC 1952). Unlike GZIPOutputStream,
+ * compressed data is pulled by the reader, so it can be used as the
+ * content of an HTTP request without buffering the whole compressed body.
+ *
+ * @author karpenko
+ */
+public class GzipCompressingInputStream extends InputStream
+{
+    private static final int BUF_SIZE = 16 * 1024;
+
+    // Header: magic number, deflate, no flags, no time, no extra flags, unknown OS
+    private static final byte[] HEADER = { 0x1f, (byte)0x8b, 8, 0, 0, 0, 0, 0, 0, (byte)0xff };
+
+    private InputStream src;
+    private Deflater deflater;
+    private CRC32 crc = new CRC32();
+
+    private byte[] inBuf = new byte[BUF_SIZE];
+    private boolean srcEof;
+
+    // Compressed data not yet returned to the reader
+    private byte[] outBuf = new byte[BUF_SIZE];
+    private int outPos;
+    private int outLen;
+
+    private boolean trailerWritten;
+    private long numBytesOut;
+
+
+    /**
+     * Constructor
+     * @param src uncompressed data
+     * @param level compression level (1 - fastest, 9 - best compression)
+     */
+    public GzipCompressingInputStream(InputStream src, int level)
+    {
+        this.src = src;
+        this.deflater = new Deflater(level, true);
+
+        System.arraycopy(HEADER, 0, outBuf, 0, HEADER.length);
+        outLen = HEADER.length;
+    }
+
+
+    @Override
+    public int read() throws IOException
+    {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return (n <= 0) ? -1 : (b[0] & 0xFF);
+    }
+
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException
+    {
+        if(len == 0) return 0;
+
+        while(outPos >= outLen)
+        {
+            if(!fill()) return -1;
+        }
+
+        int n = Math.min(len, outLen - outPos);
+        System.arraycopy(outBuf, outPos, buf, off, n);
+        outPos += n;
+        numBytesOut += n;
+
+        return n;
+    }
+
+
+    /**
+     * Compress next chunk of data into the output buffer.
+     * @return false if there is no more data
+     * @throws IOException an exception
+     */
+    private boolean fill() throws IOException
+    {
+        outPos = 0;
+        outLen = 0;
+
+        if(!deflater.finished())
+        {
+            if(deflater.needsInput() && !srcEof)
+            {
+                int n = src.read(inBuf);
+                if(n < 0)
+                {
+                    srcEof = true;
+                    deflater.finish();
+                }
+                else
+                {
+                    crc.update(inBuf, 0, n);
+                    deflater.setInput(inBuf, 0, n);
+                }
+            }
+
+            outLen = deflater.deflate(outBuf);
+            return true;
+        }
+
+        if(trailerWritten) return false;
+
+        // Trailer: CRC32 and uncompressed size (modulo 2^32), little-endian
+        writeInt((int)crc.getValue());
+        writeInt((int)deflater.getBytesRead());
+        trailerWritten = true;
+
+        return true;
+    }
+
+
+    private void writeInt(int val)
+    {
+        outBuf[outLen++] = (byte)val;
+        outBuf[outLen++] = (byte)(val >> 8);
+        outBuf[outLen++] = (byte)(val >> 16);
+        outBuf[outLen++] = (byte)(val >> 24);
+    }
+
+
+    /**
+     * Get number of compressed bytes returned to the reader so far.
+     * @return number of bytes
+     */
+    public long getNumBytesOut()
+    {
+        return numBytesOut;
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        deflater.end();
+        src.close();
+    }
+}
@@ -0,0 +1,60 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Reads a list of IDs (e.g., LIDVIDs) from a file or standard input.
+ * One ID per line. Empty lines and lines starting with '#' are skipped.
+ * Duplicate IDs are removed. The order of IDs is preserved.
+ *
+ * @author karpenko
+ */
+public class IdListReader
+{
+    /**
+     * Path to read IDs from standard input
+     */
+    public static final String STDIN = "-";
+
+
+    /**
+     * Read IDs from a file or standard input.
+     * @param path file path or "-" to read from standard input
+     * @return list of unique IDs
+     * @throws Exception an exception
+     */
+    public static List<String> read(String path) throws Exception
+    {
+        Set<String> ids = new LinkedHashSet<>();
+
+        InputStream is = STDIN.equals(path) ? System.in : new FileInputStream(path);
+        BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+
+        try
+        {
+            String line;
+            while((line = rd.readLine()) != null)
+            {
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")) continue;
+                ids.add(line);
+            }
+        }
+        finally
+        {
+            // Don't close standard input
+            if(is != System.in) rd.close();
+        }
+
+        return new ArrayList<>(ids);
+    }
+}
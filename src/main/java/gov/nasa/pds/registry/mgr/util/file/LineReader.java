@@ -0,0 +1,32 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Reads lines as raw bytes without decoding them into Java strings.
+ * Implementations keep track of the byte offset of the next line, 
+ * which can be used to resume reading from a given position.
+ * 
+ * <p>Lines are terminated by '\n'. Trailing '\r' is removed.
+ * 
+ * @author karpenko
+ */
+public interface LineReader extends Closeable
+{
+    /**
+     * Read next line. Returned buffer's position is the start of the line 
+     * and its limit is the end of the line. The buffer content should not be modified. 
+     * @return line bytes without new-line characters or null if there are no more lines.
+     * @throws IOException an exception
+     */
+    public ByteBuffer readLine() throws IOException;
+    
+    /**
+     * Get byte offset of the next line.
+     * @return byte offset
+     */
+    public long getOffset();
+}
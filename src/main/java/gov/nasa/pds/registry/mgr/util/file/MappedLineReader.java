@@ -0,0 +1,140 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Reads lines from a memory-mapped file. Line boundaries are found by 
+ * scanning the mapped bytes for '\n'. Returned lines are read-only slices 
+ * of the mapped region, i.e., bytes are neither copied nor decoded.
+ * 
+ * <p>The file is mapped in windows (256 MB by default), so files larger 
+ * than 2 GB are supported. A line crossing a window boundary causes the 
+ * next window to be mapped from the start of that line. 
+ * Mapped regions are released by the garbage collector when all lines 
+ * referencing them are no longer used.
+ * 
+ * @author karpenko
+ */
+public class MappedLineReader implements LineReader
+{
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+    
+    private FileChannel channel;
+    private long fileSize;
+    
+    private MappedByteBuffer window;
+    private long windowStart;
+    
+    private long offset;
+    
+    
+    /**
+     * Constructor
+     * @param file file to read
+     * @throws IOException an exception
+     */
+    public MappedLineReader(File file) throws IOException
+    {
+        this(file, 0);
+    }
+    
+    
+    /**
+     * Constructor
+     * @param file file to read
+     * @param startOffset byte offset of the first line to read
+     * @throws IOException an exception
+     */
+    public MappedLineReader(File file, long startOffset) throws IOException
+    {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        fileSize = channel.size();
+        offset = startOffset;
+    }
+    
+    
+    @Override
+    public ByteBuffer readLine() throws IOException
+    {
+        if(offset >= fileSize) return null;
+        
+        if(window == null || offset >= windowStart + window.limit())
+        {
+            map(offset, WINDOW_SIZE);
+        }
+        
+        while(true)
+        {
+            int start = (int)(offset - windowStart);
+            int limit = window.limit();
+            
+            int end = start;
+            while(end < limit && window.get(end) != '\n') end++;
+            
+            if(end < limit)
+            {
+                // Skip '\n'
+                offset = windowStart + end + 1;
+                return slice(start, end);
+            }
+            
+            long windowEnd = windowStart + limit;
+            if(windowEnd >= fileSize)
+            {
+                // Last line without new-line character
+                offset = fileSize;
+                return slice(start, end);
+            }
+            
+            // The line crosses window boundary. Map next window from the start of the line.
+            long lineSize = windowEnd - offset;
+            map(offset, Math.max(WINDOW_SIZE, lineSize * 2));
+        }
+    }
+    
+    
+    @Override
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    
+    @Override
+    public void close() throws IOException
+    {
+        window = null;
+        channel.close();
+    }
+    
+    
+    private void map(long pos, long size) throws IOException
+    {
+        size = Math.min(Math.min(size, fileSize - pos), Integer.MAX_VALUE);
+        if(window != null && pos == windowStart && size <= window.limit())
+        {
+            throw new IOException("Line at byte offset " + pos + " is too long");
+        }
+        
+        window = channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+        windowStart = pos;
+    }
+    
+    
+    private ByteBuffer slice(int start, int end)
+    {
+        // Remove trailing '\r'
+        if(end > start && window.get(end - 1) == '\r') end--;
+        
+        ByteBuffer buf = window.duplicate();
+        buf.position(start);
+        buf.limit(end);
+        return buf.slice();
+    }
+}
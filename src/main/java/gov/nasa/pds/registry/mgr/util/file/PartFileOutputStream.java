@@ -0,0 +1,201 @@
+package gov.nasa.pds.registry.mgr.util.file;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Output stream writing into one or more (optionally gzip-compressed) files.
+ * If maximum part size is set, the output is split into part files, e.g.,
+ * "docs-001.json", "docs-002.json". The caller decides where a file can be
+ * split by calling {@link #rollOverIfNeeded()}, e.g., after each NJSON record.
+ * The next part file is only created when more data is written, so there are
+ * no empty trailing parts.
+ *
+ * <p>Compressed files have ".gz" extension, e.g., "docs.json.gz".
+ * Part size is the size of the file on disk (after compression). For compressed
+ * files the limit is approximate, because the compressor buffers some data internally.
+ *
+ * @author karpenko
+ */
+public class PartFileOutputStream extends OutputStream
+{
+    private static final int BUF_SIZE = 64 * 1024;
+    private static final String GZIP_EXT = ".gz";
+
+    /**
+     * Counts bytes written to the file.
+     */
+    private static class CountingOutputStream extends FilterOutputStream
+    {
+        public long count;
+
+        public CountingOutputStream(OutputStream os)
+        {
+            super(os);
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+
+    private File file;
+    private boolean gzip;
+    private long maxPartSize;
+
+    private int partNum;
+    private boolean rollOver;
+    private CountingOutputStream counter;
+    private OutputStream os;
+    private List<File> files = new ArrayList<>();
+
+
+    /**
+     * Constructor
+     * @param file output file
+     * @param gzip compress output with gzip
+     * @param maxPartSize maximum part file size in bytes. If 0, output is not split.
+     * @throws IOException an exception
+     */
+    public PartFileOutputStream(File file, boolean gzip, long maxPartSize) throws IOException
+    {
+        this.file = file;
+        this.gzip = gzip;
+        this.maxPartSize = maxPartSize;
+
+        openNext();
+    }
+
+
+    /**
+     * Get output file name. Adds part number and ".gz" extension if needed,
+     * e.g., "docs.json" -&gt; "docs-001.json.gz".
+     * @param file output file
+     * @param partNum part number starting from 1. If 0, part number is not added.
+     * @param gzip true if the file is gzip-compressed
+     * @return output file
+     */
+    public static File getOutputFile(File file, int partNum, boolean gzip)
+    {
+        String name = file.getName();
+        if(gzip && name.endsWith(GZIP_EXT))
+        {
+            name = name.substring(0, name.length() - GZIP_EXT.length());
+        }
+
+        if(partNum > 0)
+        {
+            int idx = name.lastIndexOf('.');
+            String part = String.format("-%03d", partNum);
+            name = (idx > 0) ? name.substring(0, idx) + part + name.substring(idx) : name + part;
+        }
+
+        if(gzip) name += GZIP_EXT;
+
+        return new File(file.getAbsoluteFile().getParentFile(), name);
+    }
+
+
+    /**
+     * Check if a file is gzip-compressed (by extension).
+     * @param file a file
+     * @return true if the file has ".gz" extension
+     */
+    public static boolean isGzipFile(File file)
+    {
+        return file.getName().toLowerCase().endsWith(GZIP_EXT);
+    }
+
+
+    /**
+     * Start new part file on the next write if current part has reached maximum size.
+     */
+    public void rollOverIfNeeded()
+    {
+        if(maxPartSize > 0 && counter.count >= maxPartSize)
+        {
+            rollOver = true;
+        }
+    }
+
+
+    /**
+     * Get all files created by this stream.
+     * @return list of files
+     */
+    public List<File> getFiles()
+    {
+        return files;
+    }
+
+
+    private void openNext() throws IOException
+    {
+        File outFile = (maxPartSize > 0) ? getOutputFile(file, ++partNum, gzip) : getOutputFile(file, 0, gzip);
+        files.add(outFile);
+
+        // Count bytes before buffering to get the actual file size
+        counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(outFile), BUF_SIZE));
+        os = gzip ? new GZIPOutputStream(counter, BUF_SIZE) : counter;
+    }
+
+
+    private void startWrite() throws IOException
+    {
+        if(rollOver)
+        {
+            os.close();
+            openNext();
+            rollOver = false;
+        }
+    }
+
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        startWrite();
+        os.write(b);
+    }
+
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        startWrite();
+        os.write(b, off, len);
+    }
+
+
+    @Override
+    public void flush() throws IOException
+    {
+        os.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        os.close();
+    }
+}
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 
 import com.google.gson.stream.JsonWriter;
 
@@ -14,13 +15,25 @@ import com.google.gson.stream.JsonWriter;
  * NJSON file has 2 lines per data record: 1 - primary key, 2 - data record.
  * This is the file format used by Elasticsearch bulk load API.  
  * 
+ * <p>Subclasses can send records somewhere else than a file by using 
+ * the no-argument constructor and overriding {@link #writeRecord(String, String)}.
+ * 
  * @author karpenko
  *
  * @param <Record> A data record to write.
  */
 public abstract class BaseNJsonWriter<Record> implements Closeable
 {
-    protected FileWriter writer;
+    protected Writer writer;
+    
+    
+    /**
+     * Constructor. Subclasses using this constructor should override
+     * {@link #writeRecord(String, String)}.
+     */
+    protected BaseNJsonWriter()
+    {
+    }
     
     
     /**
@@ -49,7 +62,7 @@ public abstract class BaseNJsonWriter<Record> implements Closeable
     @Override
     public void close() throws IOException
     {
-        writer.close();
+        if(writer != null) writer.close();
     }
     
     
@@ -62,11 +75,9 @@ public abstract class BaseNJsonWriter<Record> implements Closeable
     public void write(String pk, Record data) throws Exception
     {
         // First line: primary key 
-        writePK(pk);
-        newLine();
+        String pkLine = createPK(pk);
         
         // Second line: data record
-
         StringWriter sw = new StringWriter();
         JsonWriter jw = new JsonWriter(sw);
         
@@ -76,7 +87,21 @@ public abstract class BaseNJsonWriter<Record> implements Closeable
         
         jw.close();
         
-        writer.write(sw.getBuffer().toString());
+        writeRecord(pkLine, sw.getBuffer().toString());
+    }
+    
+    
+    /**
+     * Write both lines of a record.
+     * @param pkLine first line (primary key)
+     * @param dataLine second line (data record)
+     * @throws Exception an exception
+     */
+    protected void writeRecord(String pkLine, String dataLine) throws Exception
+    {
+        writer.write(pkLine);
+        newLine();
+        writer.write(dataLine);
         newLine();
     }
     
@@ -93,6 +118,18 @@ public abstract class BaseNJsonWriter<Record> implements Closeable
      * @throws Exception an exception
      */
     protected void writePK(String id) throws Exception
+    {
+        writer.write(createPK(id));
+    }
+    
+    
+    /**
+     * Create primary key line: {"index":{"_id":"..."}}
+     * @param id primary key
+     * @return JSON
+     * @throws Exception an exception
+     */
+    protected String createPK(String id) throws Exception
     {
         if(id == null) throw new Exception("Primary key is null");
         
@@ -110,7 +147,7 @@ public abstract class BaseNJsonWriter<Record> implements Closeable
         
         jw.close();
         
-        writer.write(sw.getBuffer().toString());
+        return sw.getBuffer().toString();
     }
     
 }
@@ -0,0 +1,376 @@
+package gov.nasa.pds.registry.mgr.util.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+
+/**
+ * Streaming JSON scanner working on raw UTF-8 bytes. Unlike Gson JsonReader,
+ * values are not decoded. A value can be skipped or copied as is
+ * to an output stream, so a JSON sub-tree (e.g., "_source" of a search hit)
+ * can be moved from an HTTP response to a file without creating any objects.
+ *
+ * <p>Whitespace outside of strings is removed when a value is copied,
+ * so a copied value is always a single line.
+ *
+ * <p>This scanner expects valid JSON and performs only basic validation.
+ *
+ * @author karpenko
+ */
+public class RawJsonScanner
+{
+    /**
+     * Reusable byte buffer.
+     */
+    public static class RawBuffer extends ByteArrayOutputStream
+    {
+        /**
+         * Constructor
+         * @param size initial size
+         */
+        public RawBuffer(int size)
+        {
+            super(size);
+        }
+
+        /**
+         * Get internal buffer. Valid data is from 0 to size().
+         * @return internal buffer
+         */
+        public byte[] array()
+        {
+            return buf;
+        }
+
+        /**
+         * Compare buffer content with a byte array.
+         * @param val a byte array
+         * @return true if the content is equal to the byte array
+         */
+        public boolean contentEquals(byte[] val)
+        {
+            return Arrays.equals(buf, 0, count, val, 0, val.length);
+        }
+    }
+
+
+    private static final int BUF_SIZE = 64 * 1024;
+
+    private InputStream is;
+    private byte[] buf = new byte[BUF_SIZE];
+    private int pos;
+    private int len;
+
+    private RawBuffer name = new RawBuffer(64);
+
+
+    /**
+     * Constructor
+     * @param is JSON input stream
+     */
+    public RawJsonScanner(InputStream is)
+    {
+        this.is = is;
+    }
+
+
+    /**
+     * Consume '{'
+     * @throws IOException an exception
+     */
+    public void beginObject() throws IOException
+    {
+        expect('{');
+    }
+
+
+    /**
+     * Consume '}'
+     * @throws IOException an exception
+     */
+    public void endObject() throws IOException
+    {
+        expect('}');
+    }
+
+
+    /**
+     * Consume '['
+     * @throws IOException an exception
+     */
+    public void beginArray() throws IOException
+    {
+        expect('[');
+    }
+
+
+    /**
+     * Consume ']'
+     * @throws IOException an exception
+     */
+    public void endArray() throws IOException
+    {
+        expect(']');
+    }
+
+
+    /**
+     * Check if current object or array has more elements. Consumes ',' separator.
+     * @return true if there are more elements
+     * @throws IOException an exception
+     */
+    public boolean hasNext() throws IOException
+    {
+        int c = peek();
+        if(c == ',')
+        {
+            pos++;
+            c = peek();
+        }
+
+        return c >= 0 && c != '}' && c != ']';
+    }
+
+
+    /**
+     * Read the next object field name and ':' separator.
+     * Use {@link #getName()} to get the name.
+     * @throws IOException an exception
+     */
+    public void nextName() throws IOException
+    {
+        if(peek() != '"') throw new IOException("Expected field name");
+
+        name.reset();
+        copyValue(name);
+        expect(':');
+    }
+
+
+    /**
+     * Get last field name read by {@link #nextName()}.
+     * The name is a raw JSON string including quotes.
+     * @return field name
+     */
+    public RawBuffer getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Skip next value.
+     * @throws IOException an exception
+     */
+    public void skipValue() throws IOException
+    {
+        copyValue(null);
+    }
+
+
+    /**
+     * Copy next value (object, array, string, number, boolean or null)
+     * as is, except for whitespace outside of strings.
+     * @param out output stream. If null, the value is skipped.
+     * @throws IOException an exception
+     */
+    public void copyValue(OutputStream out) throws IOException
+    {
+        int c = peek();
+        if(c < 0) throw eof();
+
+        if(c == '"')
+        {
+            pos++;
+            write(out, '"');
+            copyStringBody(out);
+            return;
+        }
+
+        if(c != '{' && c != '[')
+        {
+            copyLiteral(out);
+            return;
+        }
+
+        int depth = 0;
+        while(true)
+        {
+            if(pos >= len && !fill()) throw eof();
+
+            int start = pos;
+            while(pos < len)
+            {
+                byte b = buf[pos];
+                if(b == '"')
+                {
+                    pos++;
+                    write(out, start, pos);
+                    copyStringBody(out);
+                    start = pos;
+                    // copyStringBody() could refill the buffer
+                    if(pos >= len) break;
+                    continue;
+                }
+                else if(b == '{' || b == '[')
+                {
+                    depth++;
+                }
+                else if(b == '}' || b == ']')
+                {
+                    depth--;
+                    if(depth == 0)
+                    {
+                        pos++;
+                        write(out, start, pos);
+                        return;
+                    }
+                }
+                else if(isWhitespace(b))
+                {
+                    write(out, start, pos);
+                    pos++;
+                    start = pos;
+                    continue;
+                }
+
+                pos++;
+            }
+
+            write(out, start, pos);
+        }
+    }
+
+
+    /**
+     * Copy string content after the opening quote, including the closing quote.
+     * @param out output stream or null
+     * @throws IOException an exception
+     */
+    private void copyStringBody(OutputStream out) throws IOException
+    {
+        boolean escape = false;
+
+        while(true)
+        {
+            if(pos >= len && !fill()) throw eof();
+
+            int start = pos;
+            while(pos < len)
+            {
+                byte b = buf[pos++];
+                if(escape)
+                {
+                    escape = false;
+                }
+                else if(b == '\\')
+                {
+                    escape = true;
+                }
+                else if(b == '"')
+                {
+                    write(out, start, pos);
+                    return;
+                }
+            }
+
+            write(out, start, pos);
+        }
+    }
+
+
+    /**
+     * Copy number, boolean or null.
+     * @param out output stream or null
+     * @throws IOException an exception
+     */
+    private void copyLiteral(OutputStream out) throws IOException
+    {
+        while(true)
+        {
+            if(pos >= len && !fill()) return;
+
+            int start = pos;
+            while(pos < len)
+            {
+                byte b = buf[pos];
+                if(b == ',' || b == '}' || b == ']' || isWhitespace(b))
+                {
+                    write(out, start, pos);
+                    return;
+                }
+
+                pos++;
+            }
+
+            write(out, start, pos);
+        }
+    }
+
+
+    /**
+     * Skip whitespace and return next byte without consuming it.
+     * @return next byte or -1 if there is no more data.
+     * @throws IOException an exception
+     */
+    private int peek() throws IOException
+    {
+        while(true)
+        {
+            if(pos >= len && !fill()) return -1;
+
+            byte b = buf[pos];
+            if(!isWhitespace(b)) return b & 0xFF;
+            pos++;
+        }
+    }
+
+
+    private void expect(char c) throws IOException
+    {
+        int b = peek();
+        if(b != c)
+        {
+            throw new IOException("Invalid JSON. Expected '" + c + "', but got "
+                    + ((b < 0) ? "end of stream" : "'" + (char)b + "'"));
+        }
+
+        pos++;
+    }
+
+
+    private boolean fill() throws IOException
+    {
+        pos = 0;
+        len = is.read(buf);
+        if(len < 0) len = 0;
+        return len > 0;
+    }
+
+
+    private static boolean isWhitespace(byte b)
+    {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+
+    private static void write(OutputStream out, int b) throws IOException
+    {
+        if(out != null) out.write(b);
+    }
+
+
+    private void write(OutputStream out, int start, int end) throws IOException
+    {
+        if(out != null && end > start) out.write(buf, start, end - start);
+    }
+
+
+    private static IOException eof()
+    {
+        return new IOException("Invalid JSON. Unexpected end of stream.");
+    }
+}
@@ -0,0 +1,49 @@
+package tt;
+
+import java.util.List;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+import gov.nasa.pds.registry.mgr.dao.BulkResponseParser;
+
+
+public class TestBulkResponseParser
+{
+
+    public static void main(String[] args) throws Exception
+    {
+        testNoErrors();
+        System.out.println();
+        
+        testErrors();
+    }
+
+    
+    private static void testNoErrors() throws Exception
+    {
+        String json = "{\"took\":30,\"errors\":false,\"items\":[{\"index\":{\"_id\":\"1\",\"status\":201}}]}";
+        
+        BulkResponseParser parser = new BulkResponseParser();
+        List<BulkResponseParser.ItemError> errors = parser.parse(new StringEntity(json, ContentType.APPLICATION_JSON));
+        System.out.println("Errors: " + errors.size());
+    }
+
+    
+    private static void testErrors() throws Exception
+    {
+        String json = "{\"took\":30,\"errors\":true,\"items\":["
+                + "{\"index\":{\"_id\":\"1\",\"status\":201}},"
+                + "{\"index\":{\"_id\":\"2\",\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\"}}},"
+                + "{\"index\":{\"_id\":\"3\",\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"}}}"
+                + "]}";
+        
+        BulkResponseParser parser = new BulkResponseParser();
+        List<BulkResponseParser.ItemError> errors = parser.parse(new StringEntity(json, ContentType.APPLICATION_JSON));
+        
+        for(BulkResponseParser.ItemError err: errors)
+        {
+            System.out.println(err.position + ", " + err.id + ", " + err.status + ", " + err.type + ", " + err.reason);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.io.File;
 
 import gov.nasa.pds.registry.mgr.dd.parser.AttributeDictionaryParser;
 import gov.nasa.pds.registry.mgr.dd.parser.DDAttribute;
+import gov.nasa.pds.registry.mgr.dd.parser.LddParser;
 
 
 public class TestDDParsers
@@ -28,5 +29,19 @@ public class TestDDParsers
         
         AttributeDictionaryParser parser = new AttributeDictionaryParser(file, cb);
         parser.parse();
+        
+        testLddParser(file);
+    }
+    
+    
+    public static void testLddParser(File file) throws Exception
+    {
+        LddParser parser = new LddParser(file, (classNs, className, attrId, attr) -> 
+        {
+            System.out.println(classNs + "." + className + " -> " + attrId 
+                    + ((attr == null) ? " (MISSING)" : " : " + attr.dataType));
+        });
+        
+        parser.parse();
     }
 }
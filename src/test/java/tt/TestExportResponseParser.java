@@ -0,0 +1,158 @@
+package tt;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+import gov.nasa.pds.registry.mgr.dao.ExportResponseParser;
+import gov.nasa.pds.registry.mgr.util.es.EsDocWriter;
+import gov.nasa.pds.registry.mgr.util.json.RawJsonScanner;
+import gov.nasa.pds.registry.mgr.util.json.RawJsonScanner.RawBuffer;
+
+
+public class TestExportResponseParser
+{
+    // Same as RawJsonScanner buffer size
+    private static final int BUF_SIZE = 64 * 1024;
+
+
+    public static void main(String[] args) throws Exception
+    {
+        // Escape sequence is split: '\' is the last byte of the buffer, '"' is the first byte after refill.
+        testEscapeAtBufferBoundary(BUF_SIZE - 1);
+        // '\"' is the last 2 bytes of the buffer
+        testEscapeAtBufferBoundary(BUF_SIZE - 2);
+        // '\"' is the first 2 bytes after refill
+        testEscapeAtBufferBoundary(BUF_SIZE);
+        System.out.println();
+
+        testSourceBeforeId();
+        System.out.println();
+
+        testNestedSort();
+    }
+
+
+    /**
+     * Copy a string value with an escaped quote at the given position.
+     * @param escapePos position of the backslash in the JSON
+     */
+    private static void testEscapeAtBufferBoundary(int escapePos) throws Exception
+    {
+        String prefix = "{\"hits\":{\"hits\":[{\"_id\":\"1\",\"_source\":{\"t\":\"";
+        String text = repeat('a', escapePos - prefix.length()) + "\\\"end";
+        String json = prefix + text + "\"},\"sort\":[1]}]}}";
+
+        // Scanner
+        RawJsonScanner sc = new RawJsonScanner(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        sc.beginObject();
+        sc.hasNext();
+        sc.nextName();
+        sc.beginObject();
+        sc.hasNext();
+        sc.nextName();
+        sc.beginArray();
+        sc.hasNext();
+        sc.beginObject();
+        sc.hasNext();
+        sc.nextName();
+        sc.skipValue();
+        sc.hasNext();
+        sc.nextName();
+        RawBuffer source = new RawBuffer(256);
+        sc.copyValue(source);
+
+        String expected = "{\"t\":\"" + text + "\"}";
+        System.out.println("Scanner (escape at " + escapePos + "): "
+                + (expected.equals(source.toString(StandardCharsets.UTF_8)) ? "OK" : "FAILED"));
+
+        // Parser
+        String[] lines = parse(json);
+        System.out.println("Parser (escape at " + escapePos + "): "
+                + (lines.length == 2 && expected.equals(lines[1]) ? "OK" : "FAILED"));
+    }
+
+
+    private static void testSourceBeforeId() throws Exception
+    {
+        String json = "{\"pit_id\":\"abc\",\"hits\":{\"total\":{\"value\":2},\"hits\":["
+                + "{\"_index\":\"registry\",\"_source\":{\"lid\":\"urn:a\",\"v\":[1, 2]},\"_id\":\"urn:a::1.0\",\"sort\":[1]},"
+                + "{\"_index\":\"registry\",\"_id\":\"urn:b::1.0\",\"_source\":{\"lid\":\"urn:b\"},\"sort\":[2]}"
+                + "]}}";
+
+        ExportResponseParser parser = new ExportResponseParser();
+        String[] lines = parse(parser, json);
+
+        for(String line: lines)
+        {
+            System.out.println(line);
+        }
+
+        System.out.println("Docs: " + parser.getNumDocs() + ", PIT: " + parser.getPitId()
+                + ", last ID: " + parser.getLastId());
+    }
+
+
+    private static void testNestedSort() throws Exception
+    {
+        String json = "{\"hits\":{\"hits\":["
+                + "{\"_id\":\"1\",\"_source\":{},\"sort\":[[1, 2], [\"a]\", [3]], 9007199254740993]},"
+                + "{\"_id\":\"2\",\"_source\":{},\"sort\":[[4], [\"b[\", []], 9007199254740995]}"
+                + "]}}";
+
+        ExportResponseParser parser = new ExportResponseParser();
+        parse(parser, json);
+
+        System.out.println("Docs: " + parser.getNumDocs() + ", last sort: " + parser.getLastSort());
+    }
+
+
+    private static String[] parse(String json) throws Exception
+    {
+        return parse(new ExportResponseParser(), json);
+    }
+
+
+    /**
+     * Parse search response and return lines of the exported NJSON file.
+     */
+    private static String[] parse(ExportResponseParser parser, String json) throws Exception
+    {
+        File file = File.createTempFile("export", ".json");
+
+        try
+        {
+            EsDocWriter writer = new EsDocWriter(file);
+            try
+            {
+                parser.parse(new StringEntity(json, ContentType.APPLICATION_JSON), writer);
+            }
+            finally
+            {
+                writer.close();
+            }
+
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split("\n");
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+
+    private static String repeat(char ch, int count)
+    {
+        StringBuilder sb = new StringBuilder(count);
+        for(int i = 0; i < count; i++)
+        {
+            sb.append(ch);
+        }
+
+        return sb.toString();
+    }
+}
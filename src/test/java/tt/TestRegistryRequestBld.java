@@ -1,6 +1,7 @@
 package tt;
 
 import java.io.File;
+import java.util.Arrays;
 
 import gov.nasa.pds.registry.mgr.dao.RegistryRequestBuilder;
 
@@ -43,4 +44,19 @@ public class TestRegistryRequestBld
         System.out.println(json);
     }
     
+    
+    private static void testExportDataRequestSourceFilter() throws Exception
+    {
+        RegistryRequestBuilder bld = new RegistryRequestBuilder(true);
+        
+        String json = bld.createExportDataRequest("_package_id", "abc123", "lidvid", 1000, null, 
+                Arrays.asList("lidvid", "title"), null);
+        System.out.println(json);
+
+        System.out.println();
+        json = bld.createExportAllDataRequest("lidvid", 1000, null, 
+                null, Arrays.asList("ops:Label_File_Info/ops:blob"));
+        System.out.println(json);
+    }
+    
 }
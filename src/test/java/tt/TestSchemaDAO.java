@@ -1,6 +1,7 @@
 package tt;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -18,18 +19,18 @@ public class TestSchemaDAO
 
     public static void main(String[] args) throws Exception
     {
-        //testGetLddDate();
+        //testGetLddDates();
         testGetDataTypes();
     }
 
 
-    private static void testGetLddDate() throws Exception
+    private static void testGetLddDates() throws Exception
     {
         RestClient client = EsClientFactory.createRestClient("localhost", null);
         
         SchemaDao dao = new SchemaDao(client);
-        Instant date = dao.getLddDate("registry", "test");
-        System.out.println(date);
+        Map<String, Instant> dates = dao.getLddDates("registry");
+        System.out.println(dates);
         
         client.close();
     }
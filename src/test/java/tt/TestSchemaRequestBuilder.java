@@ -6,14 +6,14 @@ public class TestSchemaRequestBuilder
 {
     public static void main(String[] args) throws Exception
     {
-        testGetLddInfoRequest();
+        testListLddsRequest();
     }
     
     
-    public static void testGetLddInfoRequest() throws Exception
+    public static void testListLddsRequest() throws Exception
     {
         SchemaRequestBuilder bld = new SchemaRequestBuilder(true);
-        String req = bld.createGetLddInfoRequest("pds");
+        String req = bld.createListLddsRequest();
         System.out.println(req);
     }
 }